@@ -0,0 +1,248 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+import service.IntersectWithOtherTaskException;
+import service.Managers;
+import service.TaskManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ * HTTP API поверх TaskManager. Каждый запрос обслуживается в своем виртуальном потоке,
+ * поэтому менеджер должен быть потокобезопасным (по умолчанию - Managers.getConcurrent()).
+ * Ответы пишутся в поток по мере обхода задач, без сборки JSON в строку.
+ *
+ * /tasks, /epics, /subtasks: GET (список или /{id}), POST (без id - создание, с id - обновление),
+ * DELETE (/{id} или все); GET /epics/{id}/subtasks. /history и /prioritized: GET.
+ *
+ * Ответ из нескольких мелких записей без TCP_NODELAY может ждать подтверждения клиента (Nagle + delayed ACK).
+ * Свойство sun.net.httpserver.nodelay действует на все HttpServer процесса, поэтому сервер его не задает:
+ * при необходимости его включают при запуске, -Dsun.net.httpserver.nodelay=true.
+ */
+public class HttpTaskServer {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int BACKLOG = 1024;
+
+    private final TaskManager taskManager;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, DEFAULT_PORT);
+    }
+
+    public HttpTaskServer(TaskManager taskManager, int port) throws IOException {
+        this.taskManager = taskManager;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/tasks", exchange -> handle(exchange, () -> handleEntities(exchange, TaskType.TASK)));
+        server.createContext("/epics", exchange -> handle(exchange, () -> handleEntities(exchange, TaskType.EPIC)));
+        server.createContext("/subtasks", exchange -> handle(exchange, () -> handleEntities(exchange, TaskType.SUBTASK)));
+        server.createContext("/history", exchange -> handle(exchange, () -> handleReadOnly(exchange, taskManager.getHistory())));
+        server.createContext("/prioritized", exchange -> handle(exchange, () -> handleReadOnly(exchange, taskManager.getPrioritizedTasks())));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        HttpTaskServer server = new HttpTaskServer(Managers.getConcurrent(), port);
+        server.start();
+        System.out.println("HTTP-сервер запущен на порту " + server.getPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.close();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private interface ExchangeAction {
+        void run() throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, ExchangeAction action) throws IOException {
+        try (exchange) {
+            try {
+                action.run();
+            } catch (IntersectWithOtherTaskException e) {
+                sendErrorIfPossible(exchange, 406, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                sendErrorIfPossible(exchange, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                // Подробности остаются в журнале сервера: текст исключения может раскрывать пути и внутреннее устройство
+                System.out.println("Ошибка обработки запроса " + exchange.getRequestMethod() + " "
+                        + exchange.getRequestURI() + ": " + e);
+                e.printStackTrace();
+                sendErrorIfPossible(exchange, 500, "Внутренняя ошибка сервера");
+            }
+        }
+    }
+
+    // Если заголовки уже ушли (ошибка посреди ответа), клиент увидит оборванный ответ при закрытии обмена
+    private void sendErrorIfPossible(HttpExchange exchange, int code, String message) throws IOException {
+        if (exchange.getResponseCode() == -1) {
+            sendError(exchange, code, message);
+        }
+    }
+
+    private void handleReadOnly(HttpExchange exchange, Collection<? extends Task> tasks) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            sendError(exchange, 405, "Метод не поддерживается: " + exchange.getRequestMethod());
+            return;
+        }
+        sendTasks(exchange, 200, tasks);
+    }
+
+    private void handleEntities(HttpExchange exchange, TaskType type) throws IOException {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        Integer id = path.length > 2 ? Integer.valueOf(path[2]) : null;
+        switch (exchange.getRequestMethod()) {
+            case "GET" -> {
+                if (id == null) {
+                    sendTasks(exchange, 200, view(type));
+                    return;
+                }
+                // Запрос подзадач эпика не просмотр самого эпика и в историю не попадает
+                boolean subtasksRequested = path.length > 3 && path[3].equals("subtasks");
+                Task task = subtasksRequested ? taskManager.findStored(type, id) : find(type, id);
+                if (task == null) {
+                    sendError(exchange, 404, "Не найдена задача с id=" + id);
+                } else if (subtasksRequested && task instanceof Epic epic) {
+                    sendTasks(exchange, 200, taskManager.getEpicSubtasks(epic));
+                } else {
+                    sendTask(exchange, 200, task);
+                }
+            }
+            case "POST" -> {
+                String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                Task task = TaskJsonReader.read(body, type);
+                if (task.getId() == 0) {
+                    add(task);
+                    // Подзадача с неизвестным эпиком не добавляется и остается без id
+                    if (task instanceof Subtask subtask && task.getId() == 0) {
+                        sendError(exchange, 404, "Не найден эпик с id=" + subtask.getEpicId());
+                    } else {
+                        sendTask(exchange, 201, task);
+                    }
+                } else if (taskManager.findStored(type, task.getId()) != null) {
+                    update(task);
+                    sendTask(exchange, 200, task);
+                } else {
+                    sendError(exchange, 404, "Не найдена задача с id=" + task.getId());
+                }
+            }
+            case "DELETE" -> {
+                delete(type, id);
+                exchange.sendResponseHeaders(204, -1);
+            }
+            default -> sendError(exchange, 405, "Метод не поддерживается: " + exchange.getRequestMethod());
+        }
+    }
+
+    private Collection<? extends Task> view(TaskType type) {
+        return switch (type) {
+            case TASK -> taskManager.getTasksView();
+            case EPIC -> taskManager.getEpicsView();
+            case SUBTASK -> taskManager.getSubtasksView();
+        };
+    }
+
+    private Task find(TaskType type, int id) {
+        return switch (type) {
+            case TASK -> taskManager.getTaskById(id);
+            case EPIC -> taskManager.getEpicById(id);
+            case SUBTASK -> taskManager.getSubtaskById(id);
+        };
+    }
+
+    private void add(Task task) {
+        switch (task.getType()) {
+            case TASK -> taskManager.addNewTask(task);
+            case EPIC -> taskManager.addNewEpic((Epic) task);
+            case SUBTASK -> taskManager.addNewSubtask((Subtask) task);
+        }
+    }
+
+    private void update(Task task) {
+        switch (task.getType()) {
+            case TASK -> taskManager.updateTask(task);
+            case EPIC -> taskManager.updateEpic((Epic) task);
+            case SUBTASK -> taskManager.updateSubtask((Subtask) task);
+        }
+    }
+
+    private void delete(TaskType type, Integer id) {
+        switch (type) {
+            case TASK -> {
+                if (id == null) {
+                    taskManager.deleteAllTasks();
+                } else {
+                    taskManager.deleteTaskById(id);
+                }
+            }
+            case EPIC -> {
+                if (id == null) {
+                    taskManager.deleteAllEpics();
+                } else {
+                    taskManager.deleteEpicById(id);
+                }
+            }
+            case SUBTASK -> {
+                if (id == null) {
+                    taskManager.deleteAllSubtasks();
+                } else {
+                    taskManager.deleteSubtaskById(id);
+                }
+            }
+        }
+    }
+
+    private void sendTasks(HttpExchange exchange, int code, Collection<? extends Task> tasks) throws IOException {
+        try (Writer writer = openJson(exchange, code)) {
+            TaskJsonWriter json = new TaskJsonWriter(writer);
+            json.beginArray();
+            for (Task task : tasks) {
+                json.arrayElement(task);
+            }
+            json.endArray();
+        }
+    }
+
+    private void sendTask(HttpExchange exchange, int code, Task task) throws IOException {
+        try (Writer writer = openJson(exchange, code)) {
+            new TaskJsonWriter(writer).write(task);
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int code, String message) throws IOException {
+        try (Writer writer = openJson(exchange, code)) {
+            new TaskJsonWriter(writer).writeError(message);
+        }
+    }
+
+    // Длина ответа заранее неизвестна, поэтому он уходит chunked-кодированием
+    private Writer openJson(HttpExchange exchange, int code) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, 0);
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+    }
+}
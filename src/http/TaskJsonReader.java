@@ -0,0 +1,183 @@
+package http;
+
+import model.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Разбирает плоский JSON-объект задачи в том же формате, что пишет TaskJsonWriter.
+ * Вложенные массивы (subtaskIds эпика) пропускаются - ими управляет менеджер.
+ */
+class TaskJsonReader {
+    private final String json;
+    private int position;
+
+    private TaskJsonReader(String json) {
+        this.json = json;
+    }
+
+    static Task read(String json, TaskType type) {
+        Map<String, String> fields = new TaskJsonReader(json).readObject();
+        String name = fields.get("name");
+        if (name == null) {
+            throw new IllegalArgumentException("Не задано имя задачи");
+        }
+        String description = fields.get("description");
+        Status status = fields.get("status") != null ? Status.valueOf(fields.get("status")) : Status.NEW;
+        Duration duration = fields.get("duration") != null ? Duration.ofMinutes(Long.parseLong(fields.get("duration"))) : null;
+        LocalDateTime startTime = parseTime(fields.get("startTime"));
+
+        Task task = switch (type) {
+            case TASK -> new Task(name, description, status, duration, startTime);
+            case EPIC -> new Epic(name, description, duration, startTime);
+            case SUBTASK -> {
+                if (fields.get("epicId") == null) {
+                    throw new IllegalArgumentException("Не задан epicId подзадачи");
+                }
+                yield new Subtask(name, description, status, duration, startTime, Integer.parseInt(fields.get("epicId")));
+            }
+        };
+        if (fields.get("id") != null) {
+            task.setId(Integer.parseInt(fields.get("id")));
+        }
+        return task;
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        try {
+            return value != null ? LocalDateTime.parse(value) : null;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректное время: " + value, e);
+        }
+    }
+
+    private Map<String, String> readObject() {
+        Map<String, String> fields = new HashMap<>();
+        expect('{');
+        if (peek() == '}') {
+            position++;
+            return fields;
+        }
+        while (true) {
+            String key = readString();
+            expect(':');
+            fields.put(key, readValue());
+            char next = next();
+            if (next == '}') {
+                return fields;
+            }
+            if (next != ',') {
+                throw error("ожидалась ',' или '}'");
+            }
+        }
+    }
+
+    private String readValue() {
+        char c = peek();
+        if (c == '"') {
+            return readString();
+        }
+        if (c == '[') {
+            skipArray();
+            return null;
+        }
+        int start = position;
+        while (position < json.length() && ",}] \t\r\n".indexOf(json.charAt(position)) < 0) {
+            position++;
+        }
+        String literal = json.substring(start, position);
+        if (literal.isEmpty()) {
+            throw error("ожидалось значение");
+        }
+        return literal.equals("null") ? null : literal;
+    }
+
+    private void skipArray() {
+        expect('[');
+        if (peek() == ']') {
+            position++;
+            return;
+        }
+        while (true) {
+            readValue();
+            char next = next();
+            if (next == ']') {
+                return;
+            }
+            if (next != ',') {
+                throw error("ожидалась ',' или ']'");
+            }
+        }
+    }
+
+    private String readString() {
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            if (position >= json.length()) {
+                throw error("незакрытая строка");
+            }
+            char c = json.charAt(position++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (position >= json.length()) {
+                throw error("незавершенная escape-последовательность");
+            }
+            char escaped = json.charAt(position++);
+            switch (escaped) {
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    if (position + 4 > json.length()) {
+                        throw error("незавершенная escape-последовательность \\u");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("некорректная escape-последовательность \\u");
+                    }
+                    position += 4;
+                }
+                default -> sb.append(escaped);
+            }
+        }
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw error("ожидался символ '" + expected + "'");
+        }
+    }
+
+    private char next() {
+        char c = peek();
+        position++;
+        return c;
+    }
+
+    private char peek() {
+        while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+            position++;
+        }
+        if (position >= json.length()) {
+            throw error("неожиданный конец данных");
+        }
+        return json.charAt(position);
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Некорректный JSON на позиции " + position + ": " + message);
+    }
+}
@@ -0,0 +1,113 @@
+package http;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+// Пишет задачи в JSON прямо в поток ответа, без промежуточных строк
+class TaskJsonWriter {
+    private final Writer writer;
+    private boolean firstInArray;
+
+    TaskJsonWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    void beginArray() throws IOException {
+        writer.write('[');
+        firstInArray = true;
+    }
+
+    void endArray() throws IOException {
+        writer.write(']');
+    }
+
+    void arrayElement(Task task) throws IOException {
+        if (!firstInArray) {
+            writer.write(',');
+        }
+        firstInArray = false;
+        write(task);
+    }
+
+    void write(Task task) throws IOException {
+        writer.write("{\"id\":");
+        writer.write(Integer.toString(task.getId()));
+        writer.write(",\"type\":\"");
+        writer.write(task.getType().name());
+        writer.write("\",\"name\":");
+        writeString(task.getName());
+        writer.write(",\"description\":");
+        writeString(task.getDescription());
+        writer.write(",\"status\":");
+        writeString(task.getStatus() != null ? task.getStatus().name() : null);
+        writer.write(",\"duration\":");
+        writer.write(task.getDuration() != null ? Long.toString(task.getDuration().toMinutes()) : "null");
+        writer.write(",\"startTime\":");
+        writeTime(task.getStartTime());
+        writer.write(",\"endTime\":");
+        writeTime(task.getEndTime());
+        if (task instanceof Subtask subtask) {
+            writer.write(",\"epicId\":");
+            writer.write(Integer.toString(subtask.getEpicId()));
+        } else if (task instanceof Epic epic) {
+            writer.write(",\"subtaskIds\":[");
+            boolean first = true;
+            for (int subtaskId : epic.getSubtaskIds()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                writer.write(Integer.toString(subtaskId));
+            }
+            writer.write(']');
+        }
+        writer.write('}');
+    }
+
+    void writeError(String message) throws IOException {
+        writer.write("{\"error\":");
+        writeString(message);
+        writer.write('}');
+    }
+
+    private void writeTime(LocalDateTime time) throws IOException {
+        if (time == null) {
+            writer.write("null");
+        } else {
+            writer.write('"');
+            writer.write(time.toString());
+            writer.write('"');
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                writer.write(value, from, i - from);
+                switch (c) {
+                    case '"' -> writer.write("\\\"");
+                    case '\\' -> writer.write("\\\\");
+                    case '\n' -> writer.write("\\n");
+                    case '\r' -> writer.write("\\r");
+                    case '\t' -> writer.write("\\t");
+                    default -> writer.write(String.format("\\u%04x", (int) c));
+                }
+                from = i + 1;
+            }
+        }
+        writer.write(value, from, value.length() - from);
+        writer.write('"');
+    }
+}
@@ -1,31 +1,199 @@
 package model;
 
+import util.IntHashSet;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
 
 public class Epic extends Task {
-    protected ArrayList<Integer> subtaskIds = new ArrayList<>();
-    private LocalDateTime endTime;
+    protected IntHashSet subtaskIds = new IntHashSet();
+    // Окончание в секундах от эпохи (UTC): у подзадач оно может не совпадать с границей минуты
+    private long endSecond = NO_END;
+
+    /*
+     * Агрегаты по подзадачам: id по статусам и мультимножества времен начала (в минутах)
+     * и окончания (в секундах), без создания объектов java.time. Создаются при первой подзадаче:
+     * эпики без подзадач и копии в снимках их не держат.
+     */
+    private static final class Aggregates {
+        private final Map<Status, IntHashSet> idsByStatus = new EnumMap<>(Status.class);
+        private final TreeMap<Long, Integer> startMinutes = new TreeMap<>();
+        private final TreeMap<Long, Integer> endSeconds = new TreeMap<>();
+
+        private Aggregates() {
+            for (Status status : Status.values()) {
+                idsByStatus.put(status, new IntHashSet());
+            }
+        }
+
+        private Aggregates(Aggregates source) {
+            for (Status status : Status.values()) {
+                idsByStatus.put(status, new IntHashSet(source.idsByStatus.get(status)));
+            }
+            startMinutes.putAll(source.startMinutes);
+            endSeconds.putAll(source.endSeconds);
+        }
+
+        private int count(Status status) {
+            return idsByStatus.get(status).size();
+        }
+    }
+
+    private Aggregates aggregates;
 
     public Epic(String name, String description, Duration duration, LocalDateTime startTime) {
         super(name, description, Status.NEW, duration, startTime);
     }
 
-    public ArrayList<Integer> getSubtaskIds() {
-        return subtaskIds;
+    /*
+     * Неизменяемая копия, упорядоченная по возрастанию: изменения эпика в ней не отражаются,
+     * а ее изменение бросает UnsupportedOperationException. Для обхода без упаковки -
+     * subtaskIdIterator и forEachSubtaskId.
+     */
+    public List<Integer> getSubtaskIds() {
+        int[] ids = subtaskIds.toArray();
+        Arrays.sort(ids);
+        return Arrays.stream(ids).boxed().toList();
+    }
+
+    public int[] getSubtaskIdArray() {
+        return subtaskIds.toArray();
+    }
+
+    public PrimitiveIterator.OfInt subtaskIdIterator() {
+        return subtaskIds.iterator();
     }
 
-    public void addSubtaskId(int id) {
+    public void forEachSubtaskId(IntConsumer action) {
+        subtaskIds.forEach(action);
+    }
+
+    public boolean containsSubtaskId(int id) {
+        return subtaskIds.contains(id);
+    }
+
+    public int getSubtaskCount() {
+        return subtaskIds.size();
+    }
+
+    // Только id, без агрегатов: снаружи пакета состав меняется через addSubtask/removeSubtask
+    void addSubtaskId(int id) {
         subtaskIds.add(id);
     }
 
     public void clearSubtasksIds() {
         subtaskIds.clear();
+        aggregates = null;
+    }
+
+    void removeSubtaskById(int id) {
+        subtaskIds.remove(id);
+    }
+
+    public void addSubtask(Subtask subtask) {
+        addSubtaskId(subtask.getId());
+        include(subtask);
+        refreshFromSubtasks();
     }
 
-    public void removeSubtaskById(int id) {
-        subtaskIds.remove(Integer.valueOf(id));
+    public void removeSubtask(Subtask subtask) {
+        removeSubtaskById(subtask.getId());
+        exclude(subtask);
+        refreshFromSubtasks();
+    }
+
+    /*
+     * Подзадача могла быть изменена на месте (тот же объект), поэтому прежний статус
+     * берется из агрегатов по id, а не из переданного объекта.
+     */
+    public void replaceSubtask(Subtask previous, Subtask current) {
+        exclude(previous);
+        include(current);
+        refreshFromSubtasks();
+    }
+
+    public void clearSubtasks() {
+        clearSubtasksIds();
+        refreshFromSubtasks();
+    }
+
+    // Эпик, пришедший на обновление, перенимает подзадачи эпика, который он заменяет, и пересчитывает по ним статус и время
+    public void takeSubtasksFrom(Epic previous) {
+        if (previous == this) {
+            return;
+        }
+        subtaskIds = new IntHashSet(previous.subtaskIds);
+        aggregates = previous.aggregates != null ? new Aggregates(previous.aggregates) : null;
+        refreshFromSubtasks();
+    }
+
+    private void include(Subtask subtask) {
+        if (aggregates == null) {
+            aggregates = new Aggregates();
+        }
+        if (subtask.getStatus() != null) {
+            aggregates.idsByStatus.get(subtask.getStatus()).add(subtask.getId());
+        }
+        increment(aggregates.startMinutes, subtask.startMinute, NO_START);
+        increment(aggregates.endSeconds, subtask.getEndSecond(), NO_END);
+    }
+
+    private void exclude(Subtask subtask) {
+        if (aggregates == null) {
+            return;
+        }
+        for (IntHashSet ids : aggregates.idsByStatus.values()) {
+            if (ids.remove(subtask.getId())) {
+                break;
+            }
+        }
+        decrement(aggregates.startMinutes, subtask.startMinute, NO_START);
+        decrement(aggregates.endSeconds, subtask.getEndSecond(), NO_END);
+    }
+
+    private void refreshFromSubtasks() {
+        if (aggregates == null) {
+            setStatus(Status.NEW);
+            startMinute = NO_START;
+            endSecond = NO_END;
+            durationSeconds = NO_DURATION;
+            return;
+        }
+        int newCount = aggregates.count(Status.NEW);
+        int doneCount = aggregates.count(Status.DONE);
+        int total = newCount + doneCount + aggregates.count(Status.IN_PROGRESS);
+        if (total == newCount) {
+            setStatus(Status.NEW);
+        } else if (total == doneCount) {
+            setStatus(Status.DONE);
+        } else {
+            setStatus(Status.IN_PROGRESS);
+        }
+
+        startMinute = aggregates.startMinutes.isEmpty() ? NO_START : aggregates.startMinutes.firstKey();
+        endSecond = aggregates.endSeconds.isEmpty() ? NO_END : aggregates.endSeconds.lastKey();
+        durationSeconds = startMinute != NO_START && endSecond != NO_END
+                ? Math.toIntExact(endSecond - startMinute * 60) : NO_DURATION;
+    }
+
+    private static void increment(TreeMap<Long, Integer> times, long time, long absent) {
+        if (time != absent) {
+            times.merge(time, 1, Integer::sum);
+        }
+    }
+
+    private static void decrement(TreeMap<Long, Integer> times, long time, long absent) {
+        if (time != absent) {
+            times.computeIfPresent(time, (key, count) -> count > 1 ? count - 1 : null);
+        }
     }
 
     @Override
@@ -33,21 +201,34 @@ public class Epic extends Task {
         return TaskType.EPIC;
     }
 
+    // Копия переносит id подзадач, статус и время, но не агрегаты по подзадачам
+    @Override
+    public Epic copy() {
+        Epic copy = new Epic(getName(), getDescription(), null, null);
+        copy.setId(getId());
+        copy.setStatus(getStatus());
+        copy.copyTimeFrom(this);
+        copy.endSecond = endSecond;
+        copy.subtaskIds = new IntHashSet(subtaskIds);
+        return copy;
+    }
+
     public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
+        this.startMinute = toEpochMinute(startTime);
     }
 
     public void setDuration(Duration duration) {
-        this.duration = duration;
+        this.durationSeconds = toSeconds(duration);
     }
 
     public void setEndTime(LocalDateTime endTime) {
-        this.endTime = endTime;
+        this.endSecond = endTime != null ? endTime.toEpochSecond(ZoneOffset.UTC) : NO_END;
     }
 
+    // Окончание эпика - самое позднее окончание подзадач, а не начало плюс длительность
     @Override
-    public LocalDateTime getEndTime() {
-        return endTime;
+    long getEndSecond() {
+        return endSecond;
     }
 
     @Override
@@ -16,6 +16,14 @@ public class Subtask extends Task {
         return TaskType.SUBTASK;
     }
 
+    @Override
+    public Subtask copy() {
+        Subtask copy = new Subtask(getName(), getDescription(), getStatus(), null, null, epicId);
+        copy.setId(getId());
+        copy.copyTimeFrom(this);
+        return copy;
+    }
+
     @Override
     public String toString() {
         return "model.Subtask{" +
@@ -2,6 +2,7 @@ package model;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.Objects;
 
@@ -10,23 +11,40 @@ public class Task {
     private final String name;
     private final String description;
     private Status status;
-    protected Duration duration;
-    protected LocalDateTime startTime;
 
-    private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    /*
+     * Время хранится примитивами, объекты java.time создаются только в геттерах:
+     * начало - в минутах от эпохи (UTC, с точностью до минуты, как и в файлах данных),
+     * длительность - в секундах. Отсутствующее значение - NO_START / NO_DURATION.
+     */
+    static final long NO_START = Long.MIN_VALUE;
+    static final int NO_DURATION = Integer.MIN_VALUE;
+    static final long NO_END = Long.MIN_VALUE;
+    protected long startMinute;
+    protected int durationSeconds;
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
     public Task(String name, String description, Status status, Duration duration, LocalDateTime startTime) {
         this.name = name;
         this.description = description;
         this.status = status;
-        this.duration = duration;
-        this.startTime = startTime;
+        this.durationSeconds = toSeconds(duration);
+        this.startMinute = toEpochMinute(startTime);
     }
 
     public TaskType getType() {
         return TaskType.TASK;
     }
 
+    // Независимая копия с тем же id, изменения которой не затрагивают оригинал
+    public Task copy() {
+        Task copy = new Task(name, description, status, null, null);
+        copy.setId(id);
+        copy.copyTimeFrom(this);
+        return copy;
+    }
+
     public int getId() {
         return id;
     }
@@ -89,33 +107,67 @@ public class Task {
     }
 
     public Duration getDuration() {
-        return duration;
+        return durationSeconds != NO_DURATION ? Duration.ofSeconds(durationSeconds) : null;
     }
 
     public LocalDateTime getStartTime() {
-        return startTime;
+        return startMinute != NO_START ? LocalDateTime.ofEpochSecond(startMinute * 60, 0, ZoneOffset.UTC) : null;
     }
 
     public LocalDateTime getEndTime() {
-        if (startTime == null || duration == null) {
-            return null;
-        }
-        return startTime.plus(duration);
+        long endSecond = getEndSecond();
+        return endSecond != NO_END ? LocalDateTime.ofEpochSecond(endSecond, 0, ZoneOffset.UTC) : null;
     }
 
     public String getDurationConverted() {
-        return duration != null ? String.format("%d:%02d:%02d",
-                duration.toHours(),
-                duration.toMinutesPart(),
-                duration.toSecondsPart()) : "null";
+        if (durationSeconds == NO_DURATION) {
+            return "null";
+        }
+        Duration duration = getDuration();
+        StringBuilder sb = new StringBuilder(12).append(duration.toHours()).append(':');
+        appendTwoDigits(sb, duration.toMinutesPart()).append(':');
+        return appendTwoDigits(sb, duration.toSecondsPart()).toString();
     }
 
     public String getStartTimeConverted() {
-        return startTime != null ? startTime.format(dateTimeFormatter) : "null";
+        LocalDateTime startTime = getStartTime();
+        return startTime != null ? startTime.format(DATE_TIME_FORMATTER) : "null";
     }
 
     public String getEndTimeConverted() {
-        return startTime != null && duration != null ?
-                getEndTime().format(dateTimeFormatter) : "null";
+        LocalDateTime endTime = getEndTime();
+        return endTime != null ? endTime.format(DATE_TIME_FORMATTER) : "null";
+    }
+
+    // Окончание в секундах от эпохи (UTC) или NO_END
+    long getEndSecond() {
+        if (startMinute == NO_START || durationSeconds == NO_DURATION) {
+            return NO_END;
+        }
+        return startMinute * 60 + durationSeconds;
+    }
+
+    void copyTimeFrom(Task other) {
+        startMinute = other.startMinute;
+        durationSeconds = other.durationSeconds;
+    }
+
+    static long toEpochMinute(LocalDateTime time) {
+        return time != null ? Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60) : NO_START;
+    }
+
+    static int toSeconds(Duration duration) {
+        if (duration == null) {
+            return NO_DURATION;
+        }
+        long seconds = duration.getSeconds();
+        if (seconds <= Integer.MIN_VALUE || seconds > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Недопустимая длительность задачи: " + duration);
+        }
+        return (int) seconds;
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder sb, int value) {
+        return value < 10 ? sb.append('0').append(value) : sb.append(value);
     }
 }
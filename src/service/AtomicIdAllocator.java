@@ -0,0 +1,43 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Последовательные id из одного атомарного счетчика
+public class AtomicIdAllocator implements IdAllocator {
+    private final AtomicInteger next;
+
+    public AtomicIdAllocator() {
+        this(1);
+    }
+
+    public AtomicIdAllocator(int firstId) {
+        this.next = new AtomicInteger(firstId);
+    }
+
+    @Override
+    public int nextId() {
+        return next.getAndIncrement();
+    }
+
+    @Override
+    public int reserve(int count) {
+        checkCount(count);
+        return next.getAndAdd(count);
+    }
+
+    static void checkCount(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Число id должно быть положительным: " + count);
+        }
+    }
+
+    @Override
+    public void reserveUpTo(int id) {
+        next.accumulateAndGet(id + 1, Math::max);
+    }
+
+    @Override
+    public int highWaterMark() {
+        return next.get();
+    }
+}
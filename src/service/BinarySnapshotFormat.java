@@ -0,0 +1,209 @@
+package service;
+
+import exceptions.ManagerSaveException;
+import model.*;
+import util.IntObjectHashMap;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/*
+ * Двоичный снимок задач для быстрого запуска. Файл читается через FileChannel.map,
+ * поэтому загрузка - последовательный проход по памяти без разбора строк и дат.
+ *
+ * Заголовок: magic, версия, граница выданных id, число записей.
+ * Запись фиксированной длины RECORD_SIZE: id, тип, статус, флаги наличия времени, epicId,
+ * начало в минутах от эпохи (UTC), длительность в секундах, смещения имени и описания в пуле строк.
+ * Пул строк идет после записей: длина в байтах (-1 для null) и UTF-8. Одинаковые строки хранятся один раз.
+ * Эпики записываются раньше подзадач, чтобы подзадачи восстанавливались за один проход.
+ * Снимок - ускоритель запуска, а не основное хранилище: он заменяется атомарным переименованием,
+ * но без fsync, и режим Durability файла данных на него не распространяется.
+ */
+final class BinarySnapshotFormat {
+    private static final int MAGIC = 0x4B4E4253; // "KNBS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 36;
+
+    private static final int HAS_START = 1;
+    private static final int HAS_DURATION = 2;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private BinarySnapshotFormat() {
+    }
+
+    static void write(Path file, int nextId, Collection<? extends Task> tasks, Collection<? extends Task> epics,
+                      Collection<? extends Task> subtasks) {
+        int count = tasks.size() + epics.size() + subtasks.size();
+        // Записи собираются в одном буфере, поэтому их размер ограничен максимальным массивом
+        long recordsSize = (long) count * RECORD_SIZE;
+        if (recordsSize > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new ManagerSaveException("Слишком много задач для снимка: " + count);
+        }
+        ByteBuffer records = ByteBuffer.allocate((int) recordsSize);
+        StringPool pool = new StringPool();
+        for (Collection<? extends Task> group : List.of(epics, tasks, subtasks)) {
+            for (Task task : group) {
+                writeRecord(records, task, pool);
+            }
+        }
+
+        Path temp = Path.of(file + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(nextId);
+            out.writeInt(count);
+            out.write(records.array(), 0, records.position());
+            pool.bytes.writeTo(out);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи снимка: " + file.getFileName(), e);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи снимка: " + file.getFileName(), e);
+        }
+    }
+
+    // Передает восстановленные задачи в порядке записи и возвращает границу выданных id
+    static int read(Path file, Consumer<Task> restore) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new ManagerSaveException("Файл не является снимком задач: " + file.getFileName());
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new ManagerSaveException("Неподдерживаемая версия снимка " + version + ": " + file.getFileName());
+            }
+            int nextId = buffer.getInt();
+            int count = buffer.getInt();
+            // Число записей из заголовка должно помещаться в файл, иначе пул строк читался бы как записи
+            long poolStart = HEADER_SIZE + (long) count * RECORD_SIZE;
+            if (count < 0 || poolStart > buffer.capacity()) {
+                throw new ManagerSaveException("Поврежден заголовок снимка (записей: " + count + "): " + file.getFileName());
+            }
+            ByteBuffer pool = buffer.slice((int) poolStart, buffer.capacity() - (int) poolStart);
+            // Повторяющиеся строки пула восстанавливаются одним объектом
+            IntObjectHashMap<String> strings = new IntObjectHashMap<>();
+            for (int i = 0; i < count; i++) {
+                restore.accept(readRecord(buffer, pool, strings));
+            }
+            return nextId;
+        } catch (IOException | IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new ManagerSaveException("Ошибка чтения снимка: " + file.getFileName(), e);
+        }
+    }
+
+    private static void writeRecord(ByteBuffer records, Task task, StringPool pool) {
+        LocalDateTime startTime = task.getStartTime();
+        Duration duration = task.getDuration();
+        records.putInt(task.getId());
+        records.put((byte) task.getType().ordinal());
+        records.put((byte) task.getStatus().ordinal());
+        records.put((byte) ((startTime != null ? HAS_START : 0) | (duration != null ? HAS_DURATION : 0)));
+        records.put((byte) 0);
+        records.putInt(task instanceof Subtask subtask ? subtask.getEpicId() : 0);
+        records.putLong(startTime != null ? startTime.toEpochSecond(ZoneOffset.UTC) / 60 : 0);
+        records.putLong(duration != null ? duration.getSeconds() : 0);
+        records.putInt(pool.add(task.getName()));
+        records.putInt(pool.add(task.getDescription()));
+    }
+
+    private static Task readRecord(ByteBuffer buffer, ByteBuffer pool, IntObjectHashMap<String> strings) {
+        int id = buffer.getInt();
+        TaskType type = TYPES[buffer.get()];
+        Status status = STATUSES[buffer.get()];
+        int flags = buffer.get();
+        buffer.get();
+        int epicId = buffer.getInt();
+        long startMinute = buffer.getLong();
+        long durationSeconds = buffer.getLong();
+        String name = readString(pool, buffer.getInt(), strings);
+        String description = readString(pool, buffer.getInt(), strings);
+
+        LocalDateTime startTime = (flags & HAS_START) != 0
+                ? LocalDateTime.ofEpochSecond(startMinute * 60, 0, ZoneOffset.UTC) : null;
+        Duration duration = (flags & HAS_DURATION) != 0 ? Duration.ofSeconds(durationSeconds) : null;
+        Task task = switch (type) {
+            case TASK -> new Task(name, description, status, duration, startTime);
+            case EPIC -> {
+                Epic epic = new Epic(name, description, duration, startTime);
+                epic.setStatus(status);
+                yield epic;
+            }
+            case SUBTASK -> new Subtask(name, description, status, duration, startTime, epicId);
+        };
+        task.setId(id);
+        return task;
+    }
+
+    private static String readString(ByteBuffer pool, int offset, IntObjectHashMap<String> strings) {
+        int length = pool.getInt(offset);
+        if (length < 0) {
+            return null;
+        }
+        String value = strings.get(offset);
+        if (value == null) {
+            byte[] bytes = new byte[length];
+            pool.get(offset + Integer.BYTES, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings.put(offset, value);
+        }
+        return value;
+    }
+
+    private static final class StringPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private int nullOffset = -1;
+
+        int add(String value) {
+            if (value == null) {
+                if (nullOffset < 0) {
+                    nullOffset = append(-1, new byte[0]);
+                }
+                return nullOffset;
+            }
+            Integer offset = offsets.get(value);
+            if (offset == null) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                offset = append(utf8.length, utf8);
+                offsets.put(value, offset);
+            }
+            return offset;
+        }
+
+        private int append(int length, byte[] utf8) {
+            int offset = bytes.size();
+            bytes.write(length >>> 24);
+            bytes.write(length >>> 16);
+            bytes.write(length >>> 8);
+            bytes.write(length);
+            bytes.write(utf8, 0, utf8.length);
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Каждый поток арендует у общего счетчика блок id и выдает их из него без синхронизации,
+ * к общему счетчику обращаясь раз в blockSize вызовов. Id уникальны, но между потоками
+ * не упорядочены, а неизрасходованные остатки блоков остаются пропусками.
+ *
+ * Виртуальные потоки (например, обработчики HttpTaskServer) обычно живут один запрос:
+ * аренда на такой поток тратила бы блок ради одного id, поэтому они берут id прямо
+ * у общего счетчика - подряд и без пропусков.
+ */
+public class BlockIdAllocator implements IdAllocator {
+    private static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private static class Lease {
+        private int next;
+        private int end;
+    }
+
+    private final int blockSize;
+    private final AtomicInteger ceiling;
+    // Наибольший id, зарезервированный через reserveUpTo; аренды ниже него отбрасываются
+    private volatile int reserved;
+    private final ThreadLocal<Lease> leases = ThreadLocal.withInitial(Lease::new);
+
+    public BlockIdAllocator() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockIdAllocator(int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Размер блока id должен быть положительным: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        this.ceiling = new AtomicInteger(1);
+    }
+
+    @Override
+    public int nextId() {
+        if (Thread.currentThread().isVirtual()) {
+            return ceiling.getAndIncrement();
+        }
+        Lease lease = leases.get();
+        if (lease.next >= lease.end || lease.next <= reserved) {
+            lease.next = ceiling.getAndAdd(blockSize);
+            lease.end = lease.next + blockSize;
+        }
+        return lease.next++;
+    }
+
+    // Блок берется прямо у общего счетчика, мимо аренды потока, поэтому id в нем идут подряд
+    @Override
+    public int reserve(int count) {
+        AtomicIdAllocator.checkCount(count);
+        return ceiling.getAndAdd(count);
+    }
+
+    @Override
+    public synchronized void reserveUpTo(int id) {
+        if (id > reserved) {
+            ceiling.accumulateAndGet(id + 1, Math::max);
+            reserved = id;
+        }
+    }
+
+    @Override
+    public int highWaterMark() {
+        return ceiling.get();
+    }
+}
@@ -0,0 +1,428 @@
+package service;
+
+import model.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/*
+ * Менеджер с единственным писателем: каждое изменение становится командой в ограниченной
+ * кольцевой очереди, отдельный поток забирает команды пачками и применяет их к InMemoryTaskManager
+ * без блокировок. Файловый менеджер сохраняет данные один раз на пачку (runBatch), а результат
+ * команды становится доступен вызывающему только после сохранения.
+ *
+ * Когда очередь заполнена, отправка команды ждет свободного места (back-pressure).
+ * Списки, представления и история читаются из снимка менеджера без обращения к очереди.
+ * Класс закрыт для наследования: конструктор запускает поток-писатель, который сразу видит this.
+ */
+public final class CommandQueueTaskManager implements TaskManager, AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_BATCH = 256;
+
+    private record Command<R>(Function<InMemoryTaskManager, R> action, CompletableFuture<R> result) {
+
+        private void apply(InMemoryTaskManager manager) {
+            try {
+                result.complete(action.apply(manager));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final Command<Void> STOP = new Command<>(manager -> null, new CompletableFuture<>());
+
+    private final InMemoryTaskManager delegate;
+    private final BlockingQueue<Command<?>> queue;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public CommandQueueTaskManager(InMemoryTaskManager delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    public CommandQueueTaskManager(InMemoryTaskManager delegate, int capacity) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::drainLoop, "task-command-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // Снимок включается заранее, чтобы чтения не зависели от потока-писателя
+        call(TaskManager::snapshot);
+    }
+
+    // Асинхронная отправка команды; future завершается после применения (и сохранения) ее пачки
+    public <R> CompletableFuture<R> submit(Function<? super InMemoryTaskManager, R> action) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new IllegalStateException("Менеджер команд закрыт"));
+            return result;
+        }
+        Command<R> command = new Command<>(action::apply, result);
+        if (Thread.currentThread() == writer) {
+            // Команда из самого писателя (например, из обработчика результата) выполняется сразу
+            command.apply(delegate);
+            return result;
+        }
+        try {
+            queue.put(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(new IllegalStateException("Прервано ожидание места в очереди команд", e));
+        }
+        // Команда могла встать в очередь после STOP, когда писатель уже остановился: ее некому выполнить
+        if (closed && !writer.isAlive()) {
+            failPending();
+        }
+        return result;
+    }
+
+    // Дожидается выполнения уже принятых команд и останавливает поток-писатель
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(STOP);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        failPending();
+    }
+
+    // Отклоняет команды, оставшиеся в очереди после остановки писателя
+    private void failPending() {
+        List<Command<?>> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        for (Command<?> command : pending) {
+            command.result().completeExceptionally(new IllegalStateException("Менеджер команд закрыт"));
+        }
+    }
+
+    private void drainLoop() {
+        List<Command<?>> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            boolean stop = batch.remove(STOP);
+            // Результаты придерживаются до конца пачки, чтобы вызывающие видели уже сохраненное состояние
+            List<Runnable> completions = new ArrayList<>(batch.size());
+            try {
+                delegate.runBatch(() -> {
+                    for (Command<?> command : batch) {
+                        completions.add(deferred(command));
+                    }
+                });
+                completions.forEach(Runnable::run);
+            } catch (Throwable e) {
+                batch.forEach(command -> command.result().completeExceptionally(e));
+            }
+            batch.clear();
+            if (stop) {
+                return;
+            }
+        }
+    }
+
+    private <R> Runnable deferred(Command<R> command) {
+        try {
+            R value = command.action().apply(delegate);
+            return () -> command.result().complete(value);
+        } catch (Throwable e) {
+            // Error тоже завершает только свою команду: поток-писатель должен жить дальше
+            return () -> command.result().completeExceptionally(e);
+        }
+    }
+
+    private <R> R call(Function<? super InMemoryTaskManager, R> action) {
+        try {
+            return submit(action).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void run(Consumer<? super InMemoryTaskManager> action) {
+        call(manager -> {
+            action.accept(manager);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        run(TaskManager::deleteAllTasks);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        run(TaskManager::deleteAllEpics);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        run(TaskManager::deleteAllSubtasks);
+    }
+
+    @Override
+    public ArrayList<Task> getTasks() {
+        return new ArrayList<>(snapshot().getTasks());
+    }
+
+    @Override
+    public ArrayList<Epic> getEpics() {
+        return new ArrayList<>(snapshot().getEpics());
+    }
+
+    @Override
+    public ArrayList<Subtask> getSubtasks() {
+        return new ArrayList<>(snapshot().getSubtasks());
+    }
+
+    // Представления каждый раз читают текущий снимок, поэтому отражают последние изменения
+    @Override
+    public Collection<Task> getTasksView() {
+        return snapshotView(TaskSnapshot::getTasks);
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return snapshotView(TaskSnapshot::getEpics);
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return snapshotView(TaskSnapshot::getSubtasks);
+    }
+
+    @Override
+    public Stream<Task> streamTasks() {
+        return snapshot().getTasks().stream();
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return snapshot().getEpics().stream();
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return snapshot().getSubtasks().stream();
+    }
+
+    @Override
+    public void forEachTask(Consumer<? super Task> action) {
+        snapshot().getTasks().forEach(action);
+    }
+
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        snapshot().getEpics().forEach(action);
+    }
+
+    @Override
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        snapshot().getSubtasks().forEach(action);
+    }
+
+    @Override
+    public void addNewTask(Task task) {
+        run(manager -> manager.addNewTask(task));
+    }
+
+    @Override
+    public void addNewEpic(Epic epic) {
+        run(manager -> manager.addNewEpic(epic));
+    }
+
+    @Override
+    public void addNewSubtask(Subtask subtask) {
+        run(manager -> manager.addNewSubtask(subtask));
+    }
+
+    @Override
+    public void addAll(Collection<? extends Task> tasks) {
+        run(manager -> manager.addAll(tasks));
+    }
+
+    @Override
+    public ArrayList<Subtask> getEpicSubtasks(Epic epic) {
+        return new ArrayList<>(snapshot().getEpicSubtasks(epic.getId()));
+    }
+
+    // История не меняется, поэтому задача читается из снимка без очереди
+    @Override
+    public Task findStored(TaskType type, int id) {
+        TaskSnapshot snapshot = snapshot();
+        return switch (type) {
+            case TASK -> snapshot.getTaskById(id);
+            case EPIC -> snapshot.getEpicById(id);
+            case SUBTASK -> snapshot.getSubtaskById(id);
+        };
+    }
+
+    // Просмотр по id меняет историю, поэтому тоже идет через очередь
+    @Override
+    public Epic getEpicById(int id) {
+        return call(manager -> manager.getEpicById(id));
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return call(manager -> manager.getTaskById(id));
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return call(manager -> manager.getSubtaskById(id));
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        run(manager -> manager.deleteEpicById(id));
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        run(manager -> manager.deleteTaskById(id));
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        run(manager -> manager.deleteSubtaskById(id));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        run(manager -> manager.updateTask(task));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        run(manager -> manager.updateEpic(epic));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        run(manager -> manager.updateSubtask(subtask));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return snapshot().getHistory();
+    }
+
+    @Override
+    public TaskSnapshot snapshot() {
+        return delegate.snapshot();
+    }
+
+    // Запросы к индексу времени читают структуры писателя, поэтому выполняются в его потоке
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return call(TaskManager::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getTasksInWindow(LocalDateTime from, LocalDateTime to) {
+        return call(manager -> manager.getTasksInWindow(from, to));
+    }
+
+    @Override
+    public int countTasksInWindow(LocalDateTime from, LocalDateTime to) {
+        return call(manager -> manager.countTasksInWindow(from, to));
+    }
+
+    @Override
+    public LocalDateTime findNextFreeSlot(Duration length, LocalDateTime notBefore) {
+        return call(manager -> manager.findNextFreeSlot(length, notBefore));
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration length, int limit) {
+        return call(manager -> manager.findFreeSlots(from, to, length, limit));
+    }
+
+    /*
+     * Каждая операция представления, в том числе массовые (toArray, forEach, stream), работает
+     * с одним списком одного снимка, поэтому size и обход не расходятся. Список пересобирается
+     * только после смены снимка.
+     */
+    private <T extends Task> Collection<T> snapshotView(Function<TaskSnapshot, List<T>> tasks) {
+        return new AbstractCollection<>() {
+            private TaskSnapshot source;
+            private List<T> list;
+
+            private synchronized List<T> current() {
+                TaskSnapshot snapshot = snapshot();
+                if (snapshot != source) {
+                    list = tasks.apply(snapshot);
+                    source = snapshot;
+                }
+                return list;
+            }
+
+            @Override
+            public Iterator<T> iterator() {
+                return current().iterator();
+            }
+
+            @Override
+            public int size() {
+                return current().size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return current().isEmpty();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return current().contains(o);
+            }
+
+            @Override
+            public Object[] toArray() {
+                return current().toArray();
+            }
+
+            @Override
+            public <A> A[] toArray(A[] a) {
+                return current().toArray(a);
+            }
+
+            @Override
+            public void forEach(Consumer<? super T> action) {
+                current().forEach(action);
+            }
+
+            @Override
+            public Stream<T> stream() {
+                return current().stream();
+            }
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package service;
+
+import model.Task;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * История для многопоточного доступа. Просмотр задачи только кладет ее в неблокирующую очередь,
+ * а список истории обновляется пачками: очередь разбирает тот поток, который первым захватит
+ * блокировку после накопления порога. Очередь сохраняет порядок обращений, поэтому после
+ * разбора порядок истории такой же, как при последовательных вызовах. Удаление и чтение
+ * истории сначала разбирают очередь под блокировкой.
+ */
+public class ConcurrentHistoryManager implements HistoryManager {
+    private static final int DRAIN_THRESHOLD = 64;
+
+    private final ConcurrentLinkedQueue<Task> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final HistoryManager history = new InMemoryHistoryManager();
+
+    @Override
+    public void addInHistory(Task task) {
+        if (task == null) {
+            return;
+        }
+        buffer.offer(task);
+        // Если очередь уже разбирает другой поток, не ждем его - запись подхватится в этом же разборе или в следующем
+        if (pending.incrementAndGet() >= DRAIN_THRESHOLD && drainLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        drainLock.lock();
+        try {
+            drain();
+            return history.getHistory();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeNode(int id) {
+        drainLock.lock();
+        try {
+            drain();
+            history.removeNode(id);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void drain() {
+        Task task;
+        while ((task = buffer.poll()) != null) {
+            pending.decrementAndGet();
+            history.addInHistory(task);
+        }
+    }
+}
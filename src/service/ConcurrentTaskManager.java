@@ -0,0 +1,690 @@
+package service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import model.*;
+
+/*
+ * Потокобезопасный менеджер. Чтение по id идет без блокировок из ConcurrentHashMap.
+ * Изменения одной сущности берут полосы (stripes) по id: операции с подзадачей держат полосы
+ * и самой подзадачи, и ее эпика, поэтому агрегаты эпика меняются только под его полосой.
+ * Проверка пересечения и резервирование времени выполняются атомарно под блокировкой расписания;
+ * задачи без времени в расписание не попадают и эту блокировку не берут. Запросы к расписанию
+ * сначала читают индекс оптимистично и берут блокировку на чтение, только если индекс успели изменить.
+ * Массовые операции (deleteAll*, addAll) берут структурную блокировку на запись.
+ * Списки задач, как и у InMemoryTaskManager, упорядочены по id.
+ *
+ * Порядок захвата: структурная блокировка -> полосы по возрастанию -> расписание.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+    private static final int STRIPES = 64;
+
+    private final ConcurrentHashMap<Integer, Task> tasks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Epic> epics = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Subtask> subtasks = new ConcurrentHashMap<>();
+    private final IdAllocator idAllocator;
+    private final HistoryManager historyManager = Managers.getConcurrentHistory();
+
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final StampedLock scheduleLock = new StampedLock();
+    private final TimeIntervalIndex timeIndex = new TimeIntervalIndex();
+    private final SnapshotPublisher versions = new SnapshotPublisher();
+
+    public ConcurrentTaskManager() {
+        this(new AtomicIdAllocator());
+    }
+
+    // Например, BlockIdAllocator, чтобы потоки-писатели не конкурировали за общий счетчик
+    public ConcurrentTaskManager(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    // Снимок читается без блокировок; структурная блокировка нужна только один раз, при первом вызове
+    @Override
+    public TaskSnapshot snapshot() {
+        TaskSnapshot snapshot = versions.current();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        structureLock.writeLock().lock();
+        try {
+            return versions.activate(tasks.values(), epics.values(), subtasks.values(), historyManager.getHistory());
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    // Снимок публикуется через volatile-поле индекса, поэтому обычно читается без блокировки
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        List<Task> snapshot = timeIndex.cachedSorted();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        long stamp = scheduleLock.readLock();
+        try {
+            return timeIndex.sorted();
+        } finally {
+            scheduleLock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksInWindow(LocalDateTime from, LocalDateTime to) {
+        checkWindow(from, to);
+        return readSchedule(() -> timeIndex.findInWindow(from, to));
+    }
+
+    @Override
+    public int countTasksInWindow(LocalDateTime from, LocalDateTime to) {
+        checkWindow(from, to);
+        return readSchedule(() -> timeIndex.countInWindow(from, to));
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        structureLock.writeLock().lock();
+        try {
+            List<Task> removed = new ArrayList<>(tasks.values());
+            tasks.clear();
+            unschedule(removed);
+            versions.removed(removed);
+            removeFromHistory(removed.stream().map(Task::getId).toList());
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        structureLock.writeLock().lock();
+        try {
+            List<Task> removed = new ArrayList<>(subtasks.values());
+            removed.addAll(epics.values());
+            subtasks.clear();
+            epics.clear();
+            unschedule(removed);
+            versions.removed(removed);
+            removeFromHistory(removed.stream().map(Task::getId).toList());
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        structureLock.writeLock().lock();
+        try {
+            List<Subtask> removed = new ArrayList<>(subtasks.values());
+            subtasks.clear();
+            unschedule(removed);
+            epics.values().forEach(Epic::clearSubtasks);
+            versions.removed(removed, epics.values().toArray(new Task[0]));
+            removeFromHistory(removed.stream().map(Task::getId).toList());
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ArrayList<Task> getTasks() {
+        return InMemoryTaskManager.sortedById(tasks.values());
+    }
+
+    @Override
+    public ArrayList<Epic> getEpics() {
+        return InMemoryTaskManager.sortedById(epics.values());
+    }
+
+    @Override
+    public ArrayList<Subtask> getSubtasks() {
+        return InMemoryTaskManager.sortedById(subtasks.values());
+    }
+
+    @Override
+    public Collection<Task> getTasksView() {
+        return Collections.unmodifiableCollection(tasks.values());
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return Collections.unmodifiableCollection(epics.values());
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return Collections.unmodifiableCollection(subtasks.values());
+    }
+
+    @Override
+    public Stream<Task> streamTasks() {
+        return tasks.values().stream();
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return epics.values().stream();
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return subtasks.values().stream();
+    }
+
+    @Override
+    public void forEachTask(Consumer<? super Task> action) {
+        tasks.values().forEach(action);
+    }
+
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        epics.values().forEach(action);
+    }
+
+    @Override
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        subtasks.values().forEach(action);
+    }
+
+    @Override
+    public void addNewTask(Task task) {
+        if (task.getStartTime() == null) {
+            // Задача без времени не резервирует расписание: как и эпик, она публикуется под полосой своего id
+            task.setId(idAllocator.nextId());
+            int[] held = lockStripes(task.getId());
+            try {
+                tasks.put(task.getId(), task);
+                versions.changed(task);
+            } finally {
+                unlockStripes(held);
+            }
+            return;
+        }
+        structureLock.readLock().lock();
+        try {
+            // id выдается только после успешной проверки, поэтому полоса новой задачи не нужна. Версия
+            // публикуется внутри reserve: обновление или удаление этой задачи ждет расписания и публикует позже
+            if (!reserve(task, null, () -> {
+                tasks.put(task.getId(), task);
+                versions.changed(task);
+            })) {
+                throw new IntersectWithOtherTaskException("Невозможно добавить задачу! Пересечение времени с другой задачей.");
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addNewEpic(Epic epic) {
+        // Полоса нового id берется до вставки, чтобы удаление эпика не опубликовалось раньше его добавления
+        epic.setId(idAllocator.nextId());
+        int[] held = lockStripes(epic.getId());
+        try {
+            epics.put(epic.getId(), epic);
+            versions.changed(epic);
+        } finally {
+            unlockStripes(held);
+        }
+    }
+
+    @Override
+    public void addNewSubtask(Subtask subtask) {
+        int subtaskEpicId = subtask.getEpicId();
+        int[] held = lockStripes(subtaskEpicId);
+        try {
+            Epic epic = epics.get(subtaskEpicId);
+            if (epic == null) {
+                if (intersectWithOtherTasks(subtask)) {
+                    throw new IntersectWithOtherTaskException("Невозможно добавить подзадачу! Пересечение времени с другой задачей.");
+                }
+                System.out.println("Отсутствует эпик с таким id. Добавление подзадачи не было выполнено");
+                return;
+            }
+            if (!reserve(subtask, null, () -> subtasks.put(subtask.getId(), subtask))) {
+                throw new IntersectWithOtherTaskException("Невозможно добавить подзадачу! Пересечение времени с другой задачей.");
+            }
+            epic.addSubtask(subtask);
+            versions.changed(subtask, epic);
+        } finally {
+            unlockStripes(held);
+        }
+    }
+
+    @Override
+    public void addAll(Collection<? extends Task> newTasks) {
+        if (newTasks.isEmpty()) {
+            return;
+        }
+        structureLock.writeLock().lock();
+        long stamp = scheduleLock.writeLock();
+        try {
+            List<Task> accepted = new ArrayList<>(newTasks.size());
+            for (Task task : newTasks) {
+                if (task instanceof Subtask subtask && !epics.containsKey(subtask.getEpicId())) {
+                    System.out.println("Отсутствует эпик с id=" + subtask.getEpicId() + ". Подзадача " + subtask.getName() + " не будет добавлена");
+                } else {
+                    accepted.add(task);
+                }
+            }
+
+            List<IntersectWithOtherTaskException.Conflict> conflicts = timeIndex.findConflicts(accepted);
+            if (!conflicts.isEmpty()) {
+                throw new IntersectWithOtherTaskException("Невозможно добавить задачи! Найдено пересечений времени: "
+                        + conflicts.size() + ".", conflicts);
+            }
+            if (accepted.isEmpty()) {
+                return;
+            }
+
+            int nextId = idAllocator.reserve(accepted.size());
+            for (Task task : accepted) {
+                task.setId(nextId++);
+                if (task instanceof Epic epic) {
+                    epics.put(epic.getId(), epic);
+                } else if (task instanceof Subtask subtask) {
+                    subtasks.put(subtask.getId(), subtask);
+                    timeIndex.add(subtask);
+                    epics.get(subtask.getEpicId()).addSubtask(subtask);
+                } else {
+                    tasks.put(task.getId(), task);
+                    timeIndex.add(task);
+                }
+            }
+            if (versions.isActive()) {
+                List<Task> changed = new ArrayList<>(accepted);
+                for (Task task : accepted) {
+                    if (task instanceof Subtask subtask) {
+                        changed.add(epics.get(subtask.getEpicId()));
+                    }
+                }
+                versions.changed(changed);
+            }
+        } finally {
+            scheduleLock.unlockWrite(stamp);
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ArrayList<Subtask> getEpicSubtasks(Epic epic) {
+        int[] subtaskIds;
+        int[] held = lockStripes(epic.getId());
+        try {
+            subtaskIds = epic.getSubtaskIdArray();
+        } finally {
+            unlockStripes(held);
+        }
+        Arrays.sort(subtaskIds);
+        ArrayList<Subtask> epicSubtasks = new ArrayList<>(subtaskIds.length);
+        for (int subtaskId : subtaskIds) {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                epicSubtasks.add(subtask);
+            }
+        }
+        return epicSubtasks;
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return recordView(epics, id);
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return recordView(tasks, id);
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return recordView(subtasks, id);
+    }
+
+    @Override
+    public Task findStored(TaskType type, int id) {
+        return switch (type) {
+            case TASK -> tasks.get(id);
+            case EPIC -> epics.get(id);
+            case SUBTASK -> subtasks.get(id);
+        };
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        // Все операции с подзадачами эпика держат его полосу, поэтому ее достаточно
+        int[] held = lockStripes(id);
+        try {
+            Epic epic = epics.get(id);
+            if (epic != null) {
+                List<Subtask> removed = new ArrayList<>(epic.getSubtaskCount());
+                epic.forEachSubtaskId(subtaskId -> {
+                    Subtask subtask = subtasks.remove(subtaskId);
+                    if (subtask != null) {
+                        removed.add(subtask);
+                    }
+                });
+                epics.remove(id);
+                unschedule(removed);
+                if (versions.isActive()) {
+                    List<Task> removedWithEpic = new ArrayList<>(removed);
+                    removedWithEpic.add(epic);
+                    versions.removed(removedWithEpic);
+                }
+                removeFromHistory(removed.stream().map(Task::getId).toList());
+                removeFromHistory(List.of(id));
+                System.out.println("Эпик с id=" + id + " успешно удален. Так же удалены его подзадачи.");
+            } else {
+                System.out.println("Отсутствует эпик с таким id.");
+            }
+        } finally {
+            unlockStripes(held);
+        }
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        int[] held = lockStripes(id);
+        try {
+            Task task = tasks.remove(id);
+            if (task != null) {
+                unschedule(List.of(task));
+                versions.removed(List.of(task));
+            }
+            removeFromHistory(List.of(id));
+        } finally {
+            unlockStripes(held);
+        }
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        while (true) {
+            Subtask subtask = subtasks.get(id);
+            if (subtask == null) {
+                System.out.println("Отсутствует подзадача с таким id.");
+                return;
+            }
+            int[] held = lockStripes(id, subtask.getEpicId());
+            try {
+                // Подзадачу успели заменить до захвата полос - повторяем с актуальным эпиком
+                if (!subtasks.remove(id, subtask)) {
+                    continue;
+                }
+                unschedule(List.of(subtask));
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic != null) {
+                    epic.removeSubtask(subtask);
+                }
+                versions.removed(List.of(subtask), epic);
+                removeFromHistory(List.of(id));
+                System.out.println("Подзадача с id=" + id + " успешно удалена.");
+                return;
+            } finally {
+                unlockStripes(held);
+            }
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        int[] held = lockStripes(task.getId());
+        try {
+            Task previous = tasks.get(task.getId());
+            if (previous == null) {
+                System.out.println("Отсутствует задача с таким id для обновления.");
+                return;
+            }
+            if (!reserve(task, previous, () -> tasks.put(task.getId(), task))) {
+                throw new IntersectWithOtherTaskException("Невозможно обновить задачу! Пересечение времени с другой задачей.");
+            }
+            versions.changed(task);
+            System.out.println("Обновление задачи с id=" + task.getId() + " выполнено успешно.");
+        } finally {
+            unlockStripes(held);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        int[] held = lockStripes(epic.getId());
+        try {
+            Epic previous = epics.get(epic.getId());
+            if (previous != null) {
+                epic.takeSubtasksFrom(previous);
+                epics.put(epic.getId(), epic);
+                versions.changed(epic);
+                System.out.println("Обновление эпика с id=" + epic.getId() + " выполнено успешно.");
+            } else {
+                System.out.println("Отсутствует эпик с таким id для обновления.");
+            }
+        } finally {
+            unlockStripes(held);
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        int subtaskId = subtask.getId();
+        while (true) {
+            Subtask previous = subtasks.get(subtaskId);
+            if (previous == null) {
+                System.out.println("Отсутствует подзадача с таким id для обновления.");
+                return;
+            }
+            int[] held = lockStripes(subtaskId, previous.getEpicId(), subtask.getEpicId());
+            try {
+                if (subtasks.get(subtaskId) != previous) {
+                    continue;
+                }
+                if (!reserve(subtask, previous, () -> subtasks.put(subtaskId, subtask))) {
+                    throw new IntersectWithOtherTaskException("Невозможно обновить подзадачу! Пересечение времени с другой задачей.");
+                }
+                Epic previousEpic = epics.get(previous.getEpicId());
+                Epic epic = epics.get(subtask.getEpicId());
+                if (previousEpic != null && previousEpic == epic) {
+                    epic.replaceSubtask(previous, subtask);
+                } else {
+                    if (previousEpic != null) {
+                        previousEpic.removeSubtask(previous);
+                    }
+                    if (epic != null) {
+                        epic.addSubtask(subtask);
+                    }
+                }
+                versions.changed(subtask, previousEpic, epic);
+                System.out.println("Обновление подзадачи с id=" + subtaskId + " выполнено успешно.");
+                return;
+            } finally {
+                unlockStripes(held);
+            }
+        }
+    }
+
+    @Override
+    public LocalDateTime findNextFreeSlot(Duration length, LocalDateTime notBefore) {
+        checkSlotLength(length);
+        if (notBefore == null) {
+            throw new IllegalArgumentException("Не задано время, с которого искать свободный интервал.");
+        }
+        return readSchedule(() -> timeIndex.findFreeStart(notBefore, length, null));
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration length, int limit) {
+        checkWindow(from, to);
+        checkSlotLength(length);
+        checkSlotLimit(limit);
+        return readSchedule(() -> {
+            List<LocalDateTime> slots = new ArrayList<>();
+            LocalDateTime cursor = from;
+            while (slots.size() < limit) {
+                LocalDateTime start = timeIndex.findFreeStart(cursor, length, to);
+                if (start == null) {
+                    break;
+                }
+                slots.add(start);
+                cursor = start.plus(length);
+            }
+            return slots;
+        });
+    }
+
+    /*
+     * Атомарно проверяет пересечение и резервирует время задачи: при обновлении прежняя версия
+     * снимается с расписания и возвращается обратно, если новая пересекается с другими задачами.
+     * Новой задаче (previous == null) id выдается здесь же, только после успешной проверки.
+     * Если ни новая, ни прежняя версия не имеют времени, расписание не затрагивается и блокировка не нужна.
+     */
+    private boolean reserve(Task task, Task previous, Runnable store) {
+        if (!isScheduled(task) && !isScheduled(previous)) {
+            if (previous == null) {
+                task.setId(idAllocator.nextId());
+            }
+            store.run();
+            return true;
+        }
+        long stamp = scheduleLock.writeLock();
+        try {
+            if (previous != null) {
+                timeIndex.remove(previous);
+            }
+            if (timeIndex.findIntersection(task.getStartTime(), task.getEndTime()) != null) {
+                if (previous != null) {
+                    timeIndex.add(previous);
+                }
+                return false;
+            }
+            if (previous == null) {
+                task.setId(idAllocator.nextId());
+            }
+            store.run();
+            timeIndex.add(task);
+            return true;
+        } finally {
+            scheduleLock.unlockWrite(stamp);
+        }
+    }
+
+    private boolean intersectWithOtherTasks(Task externalTask) {
+        if (!isScheduled(externalTask)) {
+            return false;
+        }
+        return readSchedule(() -> timeIndex.findIntersection(externalTask.getStartTime(), externalTask.getEndTime()) != null);
+    }
+
+    /*
+     * Запрос к индексу без блокировки: если за время чтения индекс не менялся, результат верен.
+     * Чтение во время изменения TreeMap может увидеть несогласованное дерево и упасть - такой
+     * результат все равно отбрасывается, и запрос повторяется под блокировкой на чтение.
+     */
+    private <R> R readSchedule(Supplier<R> query) {
+        long stamp = scheduleLock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                R result = query.get();
+                if (scheduleLock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                if (scheduleLock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        stamp = scheduleLock.readLock();
+        try {
+            return query.get();
+        } finally {
+            scheduleLock.unlockRead(stamp);
+        }
+    }
+
+    private static boolean isScheduled(Task task) {
+        return task != null && task.getStartTime() != null;
+    }
+
+    private void unschedule(Collection<? extends Task> removed) {
+        if (removed.stream().noneMatch(ConcurrentTaskManager::isScheduled)) {
+            return;
+        }
+        long stamp = scheduleLock.writeLock();
+        try {
+            removed.forEach(timeIndex::remove);
+        } finally {
+            scheduleLock.unlockWrite(stamp);
+        }
+    }
+
+    /*
+     * Просмотр читается и записывается в историю без блокировок. Удаления сначала убирают задачу
+     * из хранилища и только потом из истории, поэтому просмотр, записанный после очистки истории,
+     * видит, что задачи уже нет, и убирает свою запись сам.
+     */
+    private <T extends Task> T recordView(Map<Integer, T> store, int id) {
+        T task = store.get(id);
+        historyManager.addInHistory(task);
+        versions.viewed(task);
+        if (task != null && !store.containsKey(id)) {
+            historyManager.removeNode(id);
+        }
+        return task;
+    }
+
+    private void removeFromHistory(Collection<Integer> ids) {
+        ids.forEach(historyManager::removeNode);
+    }
+
+    // Берет структурную блокировку на чтение и полосы указанных id в порядке возрастания
+    private int[] lockStripes(int... ids) {
+        int[] held = Arrays.stream(ids).map(stripeId -> stripeId & (STRIPES - 1)).sorted().distinct().toArray();
+        structureLock.readLock().lock();
+        for (int stripe : held) {
+            stripes[stripe].lock();
+        }
+        return held;
+    }
+
+    private void unlockStripes(int[] held) {
+        for (int i = held.length - 1; i >= 0; i--) {
+            stripes[held[i]].unlock();
+        }
+        structureLock.readLock().unlock();
+    }
+
+    private void checkSlotLength(Duration length) {
+        if (length == null || length.isNegative() || length.isZero()) {
+            throw new IllegalArgumentException("Длительность свободного интервала должна быть положительной: " + length);
+        }
+    }
+
+    private void checkSlotLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Число свободных интервалов должно быть положительным: " + limit);
+        }
+    }
+
+    private void checkWindow(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("Некорректное временное окно: " + from + " - " + to);
+        }
+    }
+}
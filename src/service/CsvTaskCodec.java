@@ -0,0 +1,328 @@
+package service;
+
+import model.*;
+import util.StringPool;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/*
+ * Кодек строки CSV: id,type,name,status,description,duration,startTime,endTime[,epicId].
+ * Поля читаются прямо из строки по позициям, без split и промежуточных строк для чисел и дат,
+ * запись идет в общий StringBuilder. Время - "dd.MM.yyyy HH:mm", длительность - "H:MM:SS",
+ * отсутствующее значение - null без кавычек.
+ *
+ * Поле с запятой, кавычкой или переводом строки, а также строка "null" пишутся в кавычках,
+ * кавычка внутри удваивается. Некорректная строка приводит к IllegalArgumentException.
+ */
+final class CsvTaskCodec {
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    private static final String NULL = "null";
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private CsvTaskCodec() {
+    }
+
+    static String encode(Task task) {
+        StringBuilder sb = new StringBuilder(96);
+        encode(task, sb);
+        return sb.toString();
+    }
+
+    static void encode(Task task, StringBuilder out) {
+        LocalDateTime startTime = task.getStartTime();
+        Duration duration = task.getDuration();
+        // У эпика без подзадач время окончания может быть не вычислено
+        LocalDateTime endTime = startTime != null && duration != null ? task.getEndTime() : null;
+
+        out.append(task.getId()).append(',');
+        out.append(task.getType().name()).append(',');
+        appendString(out, task.getName());
+        out.append(',').append(task.getStatus().name()).append(',');
+        appendString(out, task.getDescription());
+        out.append(',');
+        appendDuration(out, duration);
+        out.append(',');
+        appendTime(out, startTime);
+        out.append(',');
+        appendTime(out, endTime);
+        if (task instanceof Subtask subtask) {
+            out.append(',').append(subtask.getEpicId());
+        }
+    }
+
+    static Task decode(CharSequence line) {
+        return decode(line, null);
+    }
+
+    // Одинаковые имена и описания задач одной загрузки берутся из пула загрузчика (если он передан) одной строкой
+    static Task decode(CharSequence line, StringPool strings) {
+        FieldReader fields = new FieldReader(line);
+        int id = fields.next().intValue();
+        TaskType type = fields.next().enumValue(TYPES);
+        String name = pooled(strings, fields.next().stringValue());
+        Status status = fields.next().enumValue(STATUSES);
+        String description = pooled(strings, fields.next().stringValue());
+        Duration duration = fields.next().durationValue();
+        LocalDateTime startTime = fields.next().timeValue();
+        fields.next(); // время окончания вычисляется из начала и длительности
+
+        Task task = switch (type) {
+            case TASK -> new Task(name, description, status, duration, startTime);
+            case EPIC -> {
+                Epic epic = new Epic(name, description, duration, startTime);
+                epic.setStatus(status);
+                yield epic;
+            }
+            case SUBTASK -> new Subtask(name, description, status, duration, startTime, fields.next().intValue());
+        };
+        task.setId(id);
+        return task;
+    }
+
+    private static String pooled(StringPool strings, String value) {
+        return strings != null ? strings.dedupe(value) : value;
+    }
+
+    // Читает одну запись: строка с незакрытой кавычкой продолжается на следующей строке файла
+    static String readRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null || isComplete(line)) {
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        while (!isComplete(record) && (line = reader.readLine()) != null) {
+            record.append('\n').append(line);
+        }
+        return record.toString();
+    }
+
+    private static boolean isComplete(CharSequence line) {
+        boolean inQuotes = false;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                inQuotes = !inQuotes;
+            }
+        }
+        return !inQuotes;
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append(NULL);
+            return;
+        }
+        if (!needsQuotes(value)) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        if (value.equals(NULL)) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void appendDuration(StringBuilder out, Duration duration) {
+        if (duration == null) {
+            out.append(NULL);
+            return;
+        }
+        out.append(duration.toHours()).append(':');
+        appendTwoDigits(out, duration.toMinutesPart());
+        out.append(':');
+        appendTwoDigits(out, duration.toSecondsPart());
+    }
+
+    private static void appendTime(StringBuilder out, LocalDateTime time) {
+        if (time == null) {
+            out.append(NULL);
+            return;
+        }
+        int year = time.getYear();
+        if (year < 1000 || year > 9999) {
+            DATE_TIME_FORMATTER.formatTo(time, out);
+            return;
+        }
+        appendTwoDigits(out, time.getDayOfMonth());
+        out.append('.');
+        appendTwoDigits(out, time.getMonthValue());
+        out.append('.').append(year).append(' ');
+        appendTwoDigits(out, time.getHour());
+        out.append(':');
+        appendTwoDigits(out, time.getMinute());
+    }
+
+    private static void appendTwoDigits(StringBuilder out, int value) {
+        out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    // Курсор по полям строки: хранит границы текущего поля, не копируя его
+    private static final class FieldReader {
+        private final CharSequence line;
+        private int position;
+        private int start;
+        private int end;
+        private boolean quoted;
+
+        FieldReader(CharSequence line) {
+            this.line = line;
+        }
+
+        FieldReader next() {
+            if (position > line.length()) {
+                throw error("не хватает полей");
+            }
+            quoted = position < line.length() && line.charAt(position) == '"';
+            if (!quoted) {
+                start = position;
+                end = position;
+                while (end < line.length() && line.charAt(end) != ',') {
+                    end++;
+                }
+                position = end + 1;
+                return this;
+            }
+            start = position + 1;
+            end = start;
+            while (true) {
+                if (end >= line.length()) {
+                    throw error("незакрытая кавычка");
+                }
+                if (line.charAt(end) == '"') {
+                    if (end + 1 < line.length() && line.charAt(end + 1) == '"') {
+                        end += 2;
+                        continue;
+                    }
+                    break;
+                }
+                end++;
+            }
+            position = end + 1;
+            if (position < line.length() && line.charAt(position) != ',') {
+                throw error("после кавычки ожидалась запятая");
+            }
+            position++;
+            return this;
+        }
+
+        String stringValue() {
+            if (quoted) {
+                StringBuilder sb = new StringBuilder(end - start);
+                for (int i = start; i < end; i++) {
+                    char c = line.charAt(i);
+                    sb.append(c);
+                    if (c == '"') {
+                        i++;
+                    }
+                }
+                return sb.toString();
+            }
+            return isNull() ? null : line.subSequence(start, end).toString();
+        }
+
+        int intValue() {
+            try {
+                return Integer.parseInt(line, start, end, 10);
+            } catch (NumberFormatException e) {
+                throw error("ожидалось число");
+            }
+        }
+
+        <E extends Enum<E>> E enumValue(E[] values) {
+            for (E value : values) {
+                String name = value.name();
+                if (name.length() == end - start && regionEquals(name)) {
+                    return value;
+                }
+            }
+            throw error("неизвестное значение");
+        }
+
+        Duration durationValue() {
+            if (isNull()) {
+                return null;
+            }
+            int firstColon = indexOf(':', start);
+            int secondColon = firstColon < 0 ? -1 : indexOf(':', firstColon + 1);
+            if (secondColon < 0) {
+                throw error("ожидалась длительность H:MM:SS");
+            }
+            try {
+                long hours = Long.parseLong(line, start, firstColon, 10);
+                long minutes = Long.parseLong(line, firstColon + 1, secondColon, 10);
+                long seconds = Long.parseLong(line, secondColon + 1, end, 10);
+                return Duration.ofSeconds(hours * 3600 + minutes * 60 + seconds);
+            } catch (NumberFormatException e) {
+                throw error("ожидалась длительность H:MM:SS");
+            }
+        }
+
+        LocalDateTime timeValue() {
+            if (isNull()) {
+                return null;
+            }
+            try {
+                if (end - start == 16 && line.charAt(start + 2) == '.' && line.charAt(start + 5) == '.'
+                        && line.charAt(start + 10) == ' ' && line.charAt(start + 13) == ':') {
+                    return LocalDateTime.of(digits(6, 10), digits(3, 5), digits(0, 2), digits(11, 13), digits(14, 16));
+                }
+                return LocalDateTime.parse(line.subSequence(start, end), DATE_TIME_FORMATTER);
+            } catch (NumberFormatException | DateTimeException e) {
+                throw error("ожидалось время dd.MM.yyyy HH:mm");
+            }
+        }
+
+        private int digits(int from, int to) {
+            return Integer.parseInt(line, start + from, start + to, 10);
+        }
+
+        private boolean isNull() {
+            return !quoted && end - start == NULL.length() && regionEquals(NULL);
+        }
+
+        private boolean regionEquals(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (line.charAt(start + i) != value.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int indexOf(char c, int from) {
+            for (int i = from; i < end; i++) {
+                if (line.charAt(i) == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Некорректная строка CSV в позиции " + start + " (" + message + "): " + line);
+        }
+    }
+}
@@ -2,113 +2,125 @@ package service;
 
 import exceptions.ManagerSaveException;
 import model.*;
+import util.StringPool;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
-import java.util.stream.Stream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    // Служебная строка с границей выданных id, чтобы после перезапуска не выдавать id удаленных задач
+    static final String NEXT_ID_PREFIX = "#nextId=";
+    static final String HEADER = "taskId,type,name,status,description,duration,startTime,endTime,epicId";
+    private static final int PROGRESS_STEP = 10_000;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
     private final File dataFile;
+    // Внутри пачки изменения только помечают файл устаревшим, сохранение выполняется в конце пачки
+    private int batchDepth;
+    private boolean dirty;
+
+    /*
+     * Отложенная запись (write-behind): изменения только увеличивают счетчик, а фоновый поток
+     * пишет в файл текущий снимок раз в flushInterval или сразу по накоплении flushThreshold изменений.
+     * Снимок неизменяем, поэтому запись не мешает изменениям и не видит их наполовину.
+     * В синхронном режиме (по умолчанию) flusher == null и каждое изменение сохраняется сразу.
+     *
+     * Периодический сброс и хук завершения JVM держат менеджер через слабую ссылку, поэтому незакрытый
+     * менеджер может быть собран: тогда его поток останавливается, а хук снимается. Пока есть
+     * несохраненные изменения, менеджер удерживается в UNFLUSHED, чтобы они не потерялись.
+     */
+    private static final Set<FileBackedTaskManager> UNFLUSHED = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendingChanges = new AtomicInteger();
+    // Сброс по порогу уже поставлен в очередь потока записи
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private int flushThreshold;
+    private volatile ScheduledExecutorService flusher;
+    private Thread shutdownHook;
+
+    /*
+     * Режим надежности сохранения. Файл всегда пишется во временный и атомарно переименовывается,
+     * поэтому сбой процесса посреди записи не оставляет обрезанный файл. Режимы отличаются fsync:
+     * NONE - без fsync (данные могут потеряться при отключении питания),
+     * FSYNC - fsync файла и каталога на каждое сохранение,
+     * GROUP_COMMIT - сохранения за интервал сливаются в одну фоновую запись снимка с fsync временного
+     * файла до переименования и fsync каталога после него (потеря не больше интервала и при сбое процесса).
+     * Режим относится только к файлу данных: двоичный снимок (saveSnapshot) пишется без fsync.
+     */
+    public enum Durability {
+        NONE, FSYNC, GROUP_COMMIT
+    }
+
+    private static final Duration DEFAULT_GROUP_COMMIT_INTERVAL = Duration.ofMillis(50);
 
+    private Durability durability = Durability.NONE;
+    private final AtomicBoolean unsynced = new AtomicBoolean();
+    private ScheduledExecutorService groupCommitter;
+
+    // Публичный фасад над CsvTaskCodec: некорректная строка не прерывает загрузку, а пропускается
     public static class StringConverter {
 
         public static Task convertToTask(String value) {
-            try {
-                String[] fields = value.split(",", -1); // -1 чтобы сохранить пустые поля
-                if (fields.length < 6) {
-                    return null;
-                }
+            return convertToTask(value, null);
+        }
 
-                int id = Integer.parseInt(fields[0]);
-                TaskType taskType = TaskType.valueOf(fields[1]);
-                String name = fields[2];
-                Status status = Status.valueOf(fields[3]);
-                String description = fields[4];
-                Duration duration = parseCustomFormat(fields[5]);
-                LocalDateTime startTime = LocalDateTime.parse(fields[6], DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm"));
-
-                switch (taskType) {
-                    case TASK:
-                        Task task = new Task(name, description, status, duration, startTime);
-                        task.setId(id);
-                        return task;
-
-                    case EPIC:
-                        Epic epic = new Epic(name, description, duration, startTime);
-                        epic.setId(id);
-                        epic.setStatus(status);
-                        return epic;
-
-                    case SUBTASK:
-                        if (fields.length < 8) {
-                            return null;
-                        }
-                        int epicId = Integer.parseInt(fields[8]);
-                        Subtask subtask = new Subtask(name, description, status, duration, startTime, epicId);
-                        subtask.setId(id);
-                        return subtask;
-
-                    default:
-                        return null;
-                }
-            } catch (Exception e) {
-                System.out.println("Ошибка парсинга строки: " + value + " - " + e.getMessage());
+        // Загрузчик передает свой пул, чтобы одинаковые имена и описания его задач хранились одной строкой
+        public static Task convertToTask(String value, StringPool strings) {
+            try {
+                return CsvTaskCodec.decode(value, strings);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Ошибка парсинга строки: " + e.getMessage());
                 return null;
             }
         }
 
         public static String convertToString(Task task) {
-            StringBuilder sb = new StringBuilder();
-            sb.append(task.getId()).append(",");
-            sb.append(task.getType().toString()).append(",");
-            sb.append(task.getName()).append(",");
-            sb.append(task.getStatus()).append(",");
-            sb.append(task.getDescription()).append(",");
-            sb.append(task.getDurationConverted()).append(",");
-            sb.append(task.getStartTimeConverted()).append(",");
-            sb.append(task.getEndTimeConverted());
-            if (task.getType() == TaskType.SUBTASK) {
-                sb.append(",");
-                sb.append(((Subtask) task).getEpicId());
-            }
-            return sb.toString();
-        }
-
-        private static Duration parseCustomFormat(String timeString) {
-            try {
-                String[] parts = timeString.split(":");
-                if (parts.length != 3) {
-                    throw new IllegalArgumentException("Неверный формат: " + timeString);
-                }
-
-                long hours = Long.parseLong(parts[0]);
-                long minutes = Long.parseLong(parts[1]);
-                long seconds = Long.parseLong(parts[2]);
-
-                return Duration.ofHours(hours)
-                        .plusMinutes(minutes)
-                        .plusSeconds(seconds);
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("Неверный числовой формат: " + timeString, e);
-            }
+            return CsvTaskCodec.encode(task);
         }
-
     }
 
     public FileBackedTaskManager(File dataFile, boolean loadData) {
+        this(dataFile, loadData, loaded -> {
+        });
+    }
+
+    /*
+     * onProgress получает число загруженных записей каждые PROGRESS_STEP записей и по окончании загрузки.
+     * Загрузка из конструктора - прежний контракт открытого класса: данные восстанавливаются через
+     * final-методы InMemoryTaskManager, а наследник не должен полагаться на свои поля до конца конструктора.
+     */
+    @SuppressWarnings("this-escape")
+    public FileBackedTaskManager(File dataFile, boolean loadData, IntConsumer onProgress) {
         try {
             this.dataFile = checkAndCreateFile(dataFile);
             if (loadData) {
-                loadDataFromFile();
+                loadDataFromFile(onProgress);
             }
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка создания файла: " + dataFile.getName(), e);
@@ -117,6 +129,188 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
+    public FileBackedTaskManager(File dataFile, boolean loadData, Durability durability) {
+        this(dataFile, loadData, durability, DEFAULT_GROUP_COMMIT_INTERVAL);
+    }
+
+    // groupCommitInterval учитывается только в режиме GROUP_COMMIT; фоновый поток стартует последним действием
+    @SuppressWarnings("this-escape")
+    public FileBackedTaskManager(File dataFile, boolean loadData, Durability durability, Duration groupCommitInterval) {
+        this(dataFile, loadData);
+        this.durability = Objects.requireNonNull(durability);
+        if (durability != Durability.GROUP_COMMIT) {
+            return;
+        }
+        if (groupCommitInterval == null || groupCommitInterval.isNegative() || groupCommitInterval.isZero()) {
+            throw new IllegalArgumentException("Интервал группового fsync должен быть положительным: " + groupCommitInterval);
+        }
+        // Фоновая запись читает только снимки, поэтому снимок включается до ее запуска
+        snapshot();
+        groupCommitter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-group-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = groupCommitInterval.toMillis();
+        groupCommitter.scheduleWithFixedDelay(this::syncInBackground, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Как и в режиме GROUP_COMMIT, фоновый поток стартует последним действием конструктора
+    @SuppressWarnings("this-escape")
+    public FileBackedTaskManager(File dataFile, boolean loadData, Duration flushInterval, int flushThreshold) {
+        this(dataFile, loadData);
+        if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Интервал сброса должен быть положительным: " + flushInterval);
+        }
+        if (flushThreshold <= 0) {
+            throw new IllegalArgumentException("Порог сброса должен быть положительным: " + flushThreshold);
+        }
+        this.flushThreshold = flushThreshold;
+        // Снимок включается до запуска фонового потока: дальше он читает только готовые версии
+        snapshot();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        WeakReference<FileBackedTaskManager> self = new WeakReference<>(this);
+        Thread hook = new Thread(() -> flushOnExit(self), "task-flush-on-exit");
+        long intervalMillis = flushInterval.toMillis();
+        executor.scheduleWithFixedDelay(() -> flushPeriodically(self, executor, hook),
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        flusher = executor;
+        shutdownHook = hook;
+        Runtime.getRuntime().addShutdownHook(hook);
+    }
+
+    /*
+     * Загружает менеджер из двоичного снимка (см. saveSnapshot) вместо разбора CSV.
+     * Файл данных при этом не перезаписывается: он обновится при первом изменении.
+     */
+    public static FileBackedTaskManager loadFromSnapshot(File snapshotFile, File dataFile) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(dataFile, false);
+        List<Task> loaded = new ArrayList<>();
+        int nextId = BinarySnapshotFormat.read(snapshotFile.toPath(), loaded::add);
+        manager.restoreAll(loaded);
+        manager.reserveIdsUpTo(nextId - 1);
+        return manager;
+    }
+
+    /*
+     * Загружает менеджер на пуле fork-join: записи читаются подряд, разбираются параллельно
+     * и восстанавливаются одной пачкой, поэтому порядок эпиков и подзадач в файле не важен.
+     */
+    public static FileBackedTaskManager loadInParallel(File dataFile, ForkJoinPool pool) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(dataFile, false);
+        List<String> records = ParallelTaskLoader.readRecords(manager.dataFile.toPath());
+        records.removeIf(manager::restoreMetadata);
+        manager.restoreAll(ParallelTaskLoader.parse(records, pool));
+        return manager;
+    }
+
+    // Пишет двоичный снимок текущих задач для быстрого запуска
+    public void saveSnapshot(File snapshotFile) {
+        BinarySnapshotFormat.write(snapshotFile.toPath(), getIdHighWaterMark(),
+                getTasksView(), getEpicsView(), getSubtasksView());
+    }
+
+    // Записывает в файл все накопленные изменения; в синхронном режиме ничего не делает
+    public void flush() {
+        synchronized (flushLock) {
+            // Счетчик сбрасывается до взятия снимка: изменение после этого попадет в следующий сброс
+            int pending = pendingChanges.getAndSet(0);
+            if (pending == 0) {
+                releaseIfFlushed();
+                return;
+            }
+            TaskSnapshot snapshot = snapshot();
+            try {
+                write(snapshot.getTasks(), snapshot.getEpics(), snapshot.getSubtasks());
+            } catch (ManagerSaveException e) {
+                pendingChanges.addAndGet(pending);
+                throw e;
+            }
+            releaseIfFlushed();
+        }
+    }
+
+    // save() сначала увеличивает счетчик, затем удерживает менеджер, поэтому изменение во время сброса не теряется
+    private void releaseIfFlushed() {
+        UNFLUSHED.remove(this);
+        if (pendingChanges.get() > 0) {
+            UNFLUSHED.add(this);
+        }
+    }
+
+    // Останавливает фоновые потоки, сохраняет оставшиеся изменения и делает fsync отложенных сохранений
+    @Override
+    public void close() {
+        closeWriteBehind();
+        if (groupCommitter != null) {
+            groupCommitter.shutdown();
+            awaitTermination(groupCommitter);
+            sync();
+            groupCommitter = null;
+        }
+    }
+
+    private void closeWriteBehind() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        awaitTermination(flusher);
+        removeShutdownHook(shutdownHook);
+        flush();
+        // После закрытия изменения снова сохраняются сразу
+        flusher = null;
+    }
+
+    private static void awaitTermination(ScheduledExecutorService executor) {
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void flushOnExit(WeakReference<FileBackedTaskManager> self) {
+        FileBackedTaskManager manager = self.get();
+        if (manager != null) {
+            manager.flush();
+        }
+    }
+
+    // Задача потока записи не удерживает менеджер: после его сборки поток останавливается и хук снимается
+    private static void flushPeriodically(WeakReference<FileBackedTaskManager> self,
+                                          ScheduledExecutorService executor, Thread hook) {
+        FileBackedTaskManager manager = self.get();
+        if (manager == null) {
+            executor.shutdown();
+            removeShutdownHook(hook);
+            return;
+        }
+        manager.flushInBackground();
+    }
+
+    private static void removeShutdownHook(Thread hook) {
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // Уже идет завершение JVM, хук сам выполнит сброс
+        }
+    }
+
+    private void flushInBackground() {
+        flushScheduled.set(false);
+        try {
+            flush();
+        } catch (ManagerSaveException e) {
+            // Изменения остаются отложенными и будут записаны при следующей попытке
+            System.out.println(e.getMessage());
+        }
+    }
+
     @Override
     public void addNewSubtask(Subtask subtask) {
         super.addNewSubtask(subtask);
@@ -135,6 +329,15 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         save();
     }
 
+    @Override
+    public void addAll(Collection<? extends Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        super.addAll(tasks);
+        save();
+    }
+
     @Override
     public void deleteAllTasks() {
         super.deleteAllTasks();
@@ -189,29 +392,145 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         save();
     }
 
+    @Override
+    void runBatch(Runnable batch) {
+        batchDepth++;
+        try {
+            batch.run();
+        } finally {
+            if (--batchDepth == 0 && dirty) {
+                save();
+            }
+        }
+    }
+
     private void save() {
-        try (FileWriter writer = new FileWriter(dataFile, StandardCharsets.UTF_8, false)) {
-            String header = "taskId,type,name,status,description,duration,startTime,endTime,epicId" + System.lineSeparator();
-            writer.write(header);
-            Stream.concat(
-                            Stream.concat(
-                                    getTasks().stream(),
-                                    getEpics().stream()
-                            ),
-                            getSubtasks().stream()
-                    )
-                    .forEach(task -> {
-                        try {
-                            writer.write(StringConverter.convertToString(task) + System.lineSeparator());
-                        } catch (IOException e) {
-                            throw new UncheckedIOException(e);
-                        }
-                    });
+        if (batchDepth > 0) {
+            dirty = true;
+            return;
+        }
+        dirty = false;
+        if (groupCommitter != null) {
+            unsynced.set(true);
+            return;
+        }
+        if (flusher != null) {
+            /*
+             * Порог будит поток записи один раз до начала сброса. Сравнение >=, а не ==: после
+             * неудачного сброса счетчик возвращается выше порога, и следующее изменение снова его будит.
+             */
+            int pending = pendingChanges.incrementAndGet();
+            UNFLUSHED.add(this);
+            if (pending >= flushThreshold && flushScheduled.compareAndSet(false, true)) {
+                flusher.execute(this::flushInBackground);
+            }
+            return;
+        }
+        write(getTasksView(), getEpicsView(), getSubtasksView());
+    }
+
+    /*
+     * Новое содержимое пишется во временный файл рядом с файлом данных и заменяет его атомарным
+     * переименованием: при сбое на диске остается либо прежняя, либо новая версия целиком.
+     */
+    private void write(Collection<? extends Task> tasks, Collection<? extends Task> epics,
+                       Collection<? extends Task> subtasks) {
+        // Переименование обошло бы запрет записи в сам файл, поэтому он проверяется явно
+        if (dataFile.exists() && !dataFile.canWrite()) {
+            throw new ManagerSaveException("Нет прав на запись в файл: " + dataFile.getName());
+        }
+        Path target = dataFile.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+                writer.write(HEADER + System.lineSeparator());
+                writer.write(NEXT_ID_PREFIX + getIdHighWaterMark() + System.lineSeparator());
+                writeAll(writer, tasks);
+                writeAll(writer, epics);
+                writeAll(writer, subtasks);
+                writer.flush();
+                // Содержимое закрепляется на диске до переименования: иначе после отключения питания
+                // переименование может оказаться на диске раньше данных, и файл останется пустым
+                if (durability != Durability.NONE) {
+                    channel.force(true);
+                }
+            }
+            copyPermissions(target, temp);
+            moveAtomically(temp, target);
+            if (durability != Durability.NONE) {
+                syncDirectory(target);
+            }
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка сохранения данных в файл: " + dataFile.getName(), e);
         }
     }
 
+    // Пишет снимок одной записью с fsync, если после прошлой записи были изменения (режим GROUP_COMMIT)
+    private void sync() {
+        if (!unsynced.getAndSet(false)) {
+            return;
+        }
+        TaskSnapshot snapshot = snapshot();
+        try {
+            write(snapshot.getTasks(), snapshot.getEpics(), snapshot.getSubtasks());
+        } catch (ManagerSaveException e) {
+            unsynced.set(true);
+            throw e;
+        }
+    }
+
+    private void syncInBackground() {
+        try {
+            sync();
+        } catch (ManagerSaveException e) {
+            // Следующая попытка повторит fsync
+            System.out.println(e.getMessage());
+        }
+    }
+
+    static void moveAtomically(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Новый файл получает права прежнего, иначе замена меняла бы их на права по умолчанию
+    static void copyPermissions(Path from, Path to) throws IOException {
+        if (Files.exists(from) && Files.getFileStore(to).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        }
+    }
+
+    // fsync каталога закрепляет на диске само переименование; не все платформы его поддерживают
+    static void syncDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Например, Windows не открывает каталог как файл - остается fsync самого файла
+        }
+    }
+
+    // Строки собираются в одном буфере и пишутся в writer без промежуточного String на задачу
+    private void writeAll(Writer writer, Collection<? extends Task> tasks) throws IOException {
+        StringBuilder line = new StringBuilder(128);
+        char[] chars = new char[128];
+        for (Task task : tasks) {
+            line.setLength(0);
+            CsvTaskCodec.encode(task, line);
+            line.append(System.lineSeparator());
+            if (chars.length < line.length()) {
+                chars = new char[line.length() * 2];
+            }
+            line.getChars(0, line.length(), chars, 0);
+            writer.write(chars, 0, line.length());
+        }
+    }
+
     private File checkAndCreateFile(File file) throws IOException {
         if (file == null) {
             file = new File("data.csv");
@@ -244,39 +563,47 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return file;
     }
 
-    private void loadDataFromFile() {
-        try {
-            String content = Files.readString(dataFile.toPath(), StandardCharsets.UTF_8);
-            if (content.isEmpty()) {
+    /*
+     * Файл читается построчно и каждая запись восстанавливается сразу, поэтому память при запуске
+     * не зависит от размера файла. readLine понимает любые окончания строк (\n, \r\n, \r),
+     * так что файл, записанный на другой платформе, тоже загружается.
+     */
+    private void loadDataFromFile(IntConsumer onProgress) {
+        try (BufferedReader reader = Files.newBufferedReader(dataFile.toPath(), StandardCharsets.UTF_8)) {
+            if (reader.readLine() == null) {
                 return;
             }
-
-            Arrays.stream(content.split(System.lineSeparator()))
-                    .skip(1)
-                    .map(String::trim)
-                    .filter(line -> !line.isEmpty())
-                    .map(StringConverter::convertToTask)
-                    .filter(Objects::nonNull)
-                    .forEach(this::restoreTask);
-
+            int loaded = 0;
+            StringPool strings = new StringPool();
+            String line;
+            while ((line = CsvTaskCodec.readRecord(reader)) != null) {
+                line = line.trim();
+                if (line.isEmpty() || restoreMetadata(line)) {
+                    continue;
+                }
+                Task task = StringConverter.convertToTask(line, strings);
+                if (task != null) {
+                    restore(task);
+                }
+                if (++loaded % PROGRESS_STEP == 0) {
+                    onProgress.accept(loaded);
+                }
+            }
+            onProgress.accept(loaded);
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка загрузки данных из файла: " + dataFile.getName(), e);
         }
     }
 
-    private void restoreTask(Task task) {
-        int taskId = task.getId();
-        if (taskId > getMaxId()) {
-            setIdInManager(taskId);
+    private boolean restoreMetadata(String line) {
+        if (!line.startsWith(NEXT_ID_PREFIX)) {
+            return false;
         }
-        if (task.getType() == TaskType.SUBTASK) {
-            Subtask subtask = (Subtask) task;
-            super.addNewSubtask(subtask);
-        } else if (task.getType() == TaskType.EPIC) {
-            Epic epic = (Epic) task;
-            super.addNewEpic(epic);
-        } else {
-            super.addNewTask(task);
+        try {
+            reserveIdsUpTo(Integer.parseInt(line.substring(NEXT_ID_PREFIX.length())) - 1);
+        } catch (NumberFormatException e) {
+            System.out.println("Ошибка парсинга строки: " + line + " - " + e.getMessage());
         }
+        return true;
     }
-}
\ No newline at end of file
+}
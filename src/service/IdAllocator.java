@@ -0,0 +1,16 @@
+package service;
+
+// Источник id для новых задач
+public interface IdAllocator {
+
+    int nextId();
+
+    // Выдает count подряд идущих id одним блоком и возвращает первый из них
+    int reserve(int count);
+
+    // После вызова id не больше указанного выдаваться не будут (используется при восстановлении)
+    void reserveUpTo(int id);
+
+    // Граница выданных id: все уже выданные id меньше нее. Сохраняется вместе с данными
+    int highWaterMark();
+}
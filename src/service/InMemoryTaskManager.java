@@ -3,88 +3,271 @@ package service;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import model.*;
+import util.IntHashSet;
+import util.IntObjectHashMap;
 
 public class InMemoryTaskManager implements TaskManager {
-    private final HashMap<Integer, Task> tasks = new HashMap<>();
-    private final HashMap<Integer, Epic> epics = new HashMap<>();
-    private final HashMap<Integer, Subtask> subtasks = new HashMap<>();
-    private int id = 1;
+    private final IntObjectHashMap<Task> tasks = new IntObjectHashMap<>();
+    private final IntObjectHashMap<Epic> epics = new IntObjectHashMap<>();
+    private final IntObjectHashMap<Subtask> subtasks = new IntObjectHashMap<>();
+    private final IdAllocator idAllocator;
     private final HistoryManager historyManager = Managers.getDefaultHistory();
+    private final TimeIntervalIndex timeIndex = new TimeIntervalIndex();
+    private final TimeSlotGrid slotGrid;
+    private final SnapshotPublisher versions = new SnapshotPublisher();
 
-    void setIdInManager(int id) {
-        this.id = id;
+    public InMemoryTaskManager() {
+        this(new AtomicIdAllocator());
     }
 
-    int getMaxId() {
-        return id;
+    public InMemoryTaskManager(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+        this.slotGrid = null;
+    }
+
+    // Менеджер с битовой картой занятости для задач, выровненных по сетке слотов
+    public InMemoryTaskManager(Duration slotLength) {
+        this.idAllocator = new AtomicIdAllocator();
+        this.slotGrid = new TimeSlotGrid(slotLength);
+    }
+
+    final int getIdHighWaterMark() {
+        return idAllocator.highWaterMark();
+    }
+
+    final void reserveIdsUpTo(int id) {
+        idAllocator.reserveUpTo(id);
+    }
+
+    // Выполняет несколько изменений как одну пачку; наследники могут, например, сохранять данные один раз на пачку
+    void runBatch(Runnable batch) {
+        batch.run();
+    }
+
+    @Override
+    public Task findStored(TaskType type, int id) {
+        return switch (type) {
+            case TASK -> tasks.get(id);
+            case EPIC -> epics.get(id);
+            case SUBTASK -> subtasks.get(id);
+        };
+    }
+
+    // Восстановление задачи из хранилища с ее собственным id
+    final void restore(Task task) {
+        if (!(task instanceof Epic) && intersectWithOtherTasks(task)) {
+            throw new IntersectWithOtherTaskException("Невозможно восстановить задачу с id=" + task.getId()
+                    + "! Пересечение времени с другой задачей.");
+        }
+        if (task instanceof Epic epic) {
+            epics.put(epic.getId(), epic);
+            versions.changed(epic);
+        } else if (task instanceof Subtask subtask) {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) {
+                System.out.println("Отсутствует эпик с id=" + subtask.getEpicId() + ". Подзадача " + subtask.getName() + " не будет восстановлена");
+                return;
+            }
+            subtasks.put(subtask.getId(), subtask);
+            schedule(subtask);
+            epic.addSubtask(subtask);
+            versions.changed(subtask, epic);
+        } else {
+            tasks.put(task.getId(), task);
+            schedule(task);
+            versions.changed(task);
+        }
+        idAllocator.reserveUpTo(task.getId());
+    }
+
+    /*
+     * Восстановление пачки задач в любом порядке: сначала эпики, затем задачи и подзадачи, поэтому
+     * подзадача находит эпик, даже если стоит в файле раньше него. Пересечения проверяются одним
+     * проходом по отсортированной пачке, индекс времени пополняется целиком, а не по одной записи.
+     */
+    final void restoreAll(Collection<? extends Task> loaded) {
+        List<Epic> loadedEpics = new ArrayList<>();
+        IntHashSet epicIds = new IntHashSet();
+        for (Task task : loaded) {
+            if (task instanceof Epic epic) {
+                loadedEpics.add(epic);
+                epicIds.add(epic.getId());
+            }
+        }
+        List<Task> scheduled = new ArrayList<>(loaded.size() - loadedEpics.size());
+        for (Task task : loaded) {
+            if (task instanceof Epic) {
+                continue;
+            }
+            if (task instanceof Subtask subtask && !epicIds.contains(subtask.getEpicId()) && !epics.containsKey(subtask.getEpicId())) {
+                System.out.println("Отсутствует эпик с id=" + subtask.getEpicId() + ". Подзадача " + subtask.getName() + " не будет восстановлена");
+            } else {
+                scheduled.add(task);
+            }
+        }
+
+        List<IntersectWithOtherTaskException.Conflict> conflicts = timeIndex.findConflicts(scheduled);
+        if (!conflicts.isEmpty()) {
+            throw new IntersectWithOtherTaskException("Невозможно восстановить задачи! Найдено пересечений времени: "
+                    + conflicts.size() + ".", conflicts);
+        }
+
+        int maxId = 0;
+        for (Epic epic : loadedEpics) {
+            epics.put(epic.getId(), epic);
+            maxId = Math.max(maxId, epic.getId());
+        }
+        for (Task task : scheduled) {
+            if (task instanceof Subtask subtask) {
+                subtasks.put(subtask.getId(), subtask);
+                epics.get(subtask.getEpicId()).addSubtask(subtask);
+            } else {
+                tasks.put(task.getId(), task);
+            }
+            if (slotGrid != null) {
+                slotGrid.reserve(task);
+            }
+            maxId = Math.max(maxId, task.getId());
+        }
+        timeIndex.addAll(scheduled);
+        if (versions.isActive()) {
+            List<Task> changed = new ArrayList<>(loadedEpics);
+            for (Task task : scheduled) {
+                changed.add(task);
+                if (task instanceof Subtask subtask) {
+                    changed.add(epics.get(subtask.getEpicId()));
+                }
+            }
+            versions.changed(changed);
+        }
+        idAllocator.reserveUpTo(maxId);
     }
 
     @Override
     public List<Task> getHistory() {
-        return new ArrayList<>(historyManager.getHistory());
+        return historyManager.getHistory();
+    }
+
+    // Первый вызов собирает снимок целиком, дальше версии ведутся при каждом изменении
+    @Override
+    public TaskSnapshot snapshot() {
+        TaskSnapshot snapshot = versions.current();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        return versions.activate(tasks.values(), epics.values(), subtasks.values(), historyManager.getHistory());
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return timeIndex.sorted();
     }
 
-    public ArrayList<Task> getPrioritizedTasks() {
-        TreeSet<Task> sortedTasks = Stream.concat(
-                        getTasks().stream().filter(Objects::nonNull),
-                        getSubtasks().stream().filter(Objects::nonNull)
-                )
-                .filter(task -> task.getStartTime() != null)
-                .collect(Collectors.toCollection(
-                        () -> new TreeSet<>(Comparator.comparing(Task::getStartTime))
-                ));
+    @Override
+    public List<Task> getTasksInWindow(LocalDateTime from, LocalDateTime to) {
+        checkWindow(from, to);
+        return timeIndex.findInWindow(from, to);
+    }
 
-        return new ArrayList<>(sortedTasks);
+    @Override
+    public int countTasksInWindow(LocalDateTime from, LocalDateTime to) {
+        checkWindow(from, to);
+        return timeIndex.countInWindow(from, to);
     }
 
     @Override
     public void deleteAllTasks() {
-        tasks.keySet().forEach(historyManager::removeNode);
+        tasks.forEachKey(historyManager::removeNode);
+        tasks.forEachValue(this::unschedule);
+        versions.removed(tasks.values());
         tasks.clear();
     }
 
     @Override
     public void deleteAllEpics() {
-        Stream.concat(
-                        subtasks.keySet().stream(),
-                        epics.keySet().stream()
-                )
-                .forEach(historyManager::removeNode);
+        subtasks.forEachKey(historyManager::removeNode);
+        epics.forEachKey(historyManager::removeNode);
+        subtasks.forEachValue(this::unschedule);
+        if (versions.isActive()) {
+            List<Task> removed = new ArrayList<>(subtasks.values());
+            removed.addAll(epics.values());
+            versions.removed(removed);
+        }
         subtasks.clear();
         epics.clear();
     }
 
     @Override
     public void deleteAllSubtasks() {
-        subtasks.keySet().forEach(historyManager::removeNode);
+        subtasks.forEachKey(historyManager::removeNode);
+        subtasks.forEachValue(this::unschedule);
+        epics.forEachValue(Epic::clearSubtasks);
+        versions.removed(subtasks.values(), epics.values().toArray(new Task[0]));
         subtasks.clear();
-        epics.values()
-                .forEach(epic -> {
-                    epic.getSubtaskIds().clear();
-                    epic.setStatus(Status.NEW);
-                    epic.setDuration(null);
-                    epic.setStartTime(null);
-                    epic.setEndTime(null);
-                });
     }
 
     @Override
     public ArrayList<Task> getTasks() {
-        return new ArrayList<>(tasks.values());
+        return sortedById(tasks.values());
     }
 
     @Override
     public ArrayList<Epic> getEpics() {
-        return new ArrayList<>(epics.values());
+        return sortedById(epics.values());
     }
 
     @Override
     public ArrayList<Subtask> getSubtasks() {
-        return new ArrayList<>(subtasks.values());
+        return sortedById(subtasks.values());
+    }
+
+    @Override
+    public Collection<Task> getTasksView() {
+        return tasks.values();
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return epics.values();
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return subtasks.values();
+    }
+
+    @Override
+    public Stream<Task> streamTasks() {
+        return tasks.values().stream();
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return epics.values().stream();
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return subtasks.values().stream();
+    }
+
+    @Override
+    public void forEachTask(Consumer<? super Task> action) {
+        tasks.forEachValue(action);
+    }
+
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        epics.forEachValue(action);
+    }
+
+    @Override
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        subtasks.forEachValue(action);
     }
 
     @Override
@@ -92,16 +275,17 @@ public class InMemoryTaskManager implements TaskManager {
         if (intersectWithOtherTasks(task)) {
             throw new IntersectWithOtherTaskException("Невозможно добавить задачу! Пересечение времени с другой задачей.");
         }
-        task.setId(id);
+        task.setId(idAllocator.nextId());
         tasks.put(task.getId(), task);
-        id++;
+        schedule(task);
+        versions.changed(task);
     }
 
     @Override
     public void addNewEpic(Epic epic) {
-        epic.setId(id);
+        epic.setId(idAllocator.nextId());
         epics.put(epic.getId(), epic);
-        id++;
+        versions.changed(epic);
     }
 
     @Override
@@ -111,98 +295,88 @@ public class InMemoryTaskManager implements TaskManager {
         }
         int subtaskEpicId = subtask.getEpicId();
         if (epics.get(subtaskEpicId) != null) {
-            subtask.setId(id);
-            subtasks.put(id, subtask);
-            epics.get(subtaskEpicId).addSubtaskId(subtask.getId());
-            updateEpicStatus(subtaskEpicId);
-            updateEpicStartTime(subtaskEpicId);
-            updateEpicDuration(subtaskEpicId);
-            updateEpicEndTime(subtaskEpicId);
-            id++;
+            subtask.setId(idAllocator.nextId());
+            subtasks.put(subtask.getId(), subtask);
+            schedule(subtask);
+            Epic epic = epics.get(subtaskEpicId);
+            epic.addSubtask(subtask);
+            versions.changed(subtask, epic);
         } else {
             System.out.println("Отсутствует эпик с таким id. Добавление подзадачи не было выполнено");
         }
     }
 
-    void updateEpicStatus(int id) {
-        Epic epic = epics.get(id);
-        List<Subtask> epicSubtasks = getEpicSubtasks(epic);
-        if (epic != null && id >= 1) {
-            if (epicSubtasks.isEmpty()) {
-                epic.setStatus(Status.NEW);
+    /*
+     * Пакетное добавление: пакет сортируется один раз и проверяется проходом по времени начала
+     * как между собой, так и с уже запланированными задачами. При пересечениях не добавляется
+     * ничего, а исключение содержит все найденные конфликты.
+     */
+    @Override
+    public void addAll(Collection<? extends Task> newTasks) {
+        List<Task> accepted = new ArrayList<>(newTasks.size());
+        for (Task task : newTasks) {
+            if (task instanceof Subtask subtask && !epics.containsKey(subtask.getEpicId())) {
+                System.out.println("Отсутствует эпик с id=" + subtask.getEpicId() + ". Подзадача " + subtask.getName() + " не будет добавлена");
             } else {
-                if (epicSubtasks.stream()
-                        .allMatch(subtask -> subtask.getStatus().equals(Status.NEW))) {
-                    epic.setStatus(Status.NEW);
-                } else if (epicSubtasks.stream()
-                        .allMatch(subtask -> subtask.getStatus().equals(Status.DONE))) {
-                    epic.setStatus(Status.DONE);
-                } else {
-                    epic.setStatus(Status.IN_PROGRESS);
-                }
+                accepted.add(task);
             }
-        } else {
-            System.out.println("Отсутствует эпик с таким id.");
         }
-    }
 
-    private void updateEpicStartTime(int id) {
-        Epic epic = epics.get(id);
-        if (epic != null) {
-            Optional<LocalDateTime> minStartTime = getEpicSubtasks(epic).stream()
-                    .map(Task::getStartTime)
-                    .filter(Objects::nonNull)
-                    .min(LocalDateTime::compareTo);
-
-            if (minStartTime.isPresent()) {
-                epic.setStartTime(minStartTime.get());
-            } else {
-                epic.setStartTime(null);
-            }
-        } else {
-            System.out.println("Отсутствует эпик с таким id.");
+        List<IntersectWithOtherTaskException.Conflict> conflicts = timeIndex.findConflicts(accepted);
+        if (!conflicts.isEmpty()) {
+            throw new IntersectWithOtherTaskException("Невозможно добавить задачи! Найдено пересечений времени: "
+                    + conflicts.size() + ".", conflicts);
         }
-    }
 
-    private void updateEpicEndTime(int id) {
-        Epic epic = epics.get(id);
-        if (epic != null) {
-            Optional<LocalDateTime> maxEndTime = getEpicSubtasks(epic).stream()
-                    .map(Task::getEndTime)
-                    .filter(Objects::nonNull)
-                    .max(LocalDateTime::compareTo);
+        if (accepted.isEmpty()) {
+            return;
+        }
 
-            if (maxEndTime.isPresent()) {
-                epic.setEndTime(maxEndTime.get());
+        // Пакет получает один непрерывный блок id в порядке пакета, даже если id выдаются и другим писателям
+        int nextId = idAllocator.reserve(accepted.size());
+        for (Task task : accepted) {
+            task.setId(nextId++);
+            if (task instanceof Epic epic) {
+                epics.put(epic.getId(), epic);
+            } else if (task instanceof Subtask subtask) {
+                subtasks.put(subtask.getId(), subtask);
+                schedule(subtask);
+                epics.get(subtask.getEpicId()).addSubtask(subtask);
             } else {
-                epic.setEndTime(null);
+                tasks.put(task.getId(), task);
+                schedule(task);
             }
-        } else {
-            System.out.println("Отсутствует эпик с таким id.");
         }
-    }
-
-    private void updateEpicDuration(int id) {
-        Epic epic = epics.get(id);
-        if (epic != null && epic.getStartTime() != null && epic.getEndTime() != null) {
-            epic.setDuration(Duration.between(epic.getStartTime(), epic.getEndTime()));
-        } else {
-            epic.setDuration(null);
+        if (versions.isActive()) {
+            List<Task> changed = new ArrayList<>(accepted);
+            for (Task task : accepted) {
+                if (task instanceof Subtask subtask) {
+                    changed.add(epics.get(subtask.getEpicId()));
+                }
+            }
+            versions.changed(changed);
         }
     }
 
     @Override
     public ArrayList<Subtask> getEpicSubtasks(Epic epic) {
-        return epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toCollection(ArrayList::new));
+        int[] subtaskIds = epic.getSubtaskIdArray();
+        Arrays.sort(subtaskIds);
+        ArrayList<Subtask> epicSubtasks = new ArrayList<>(subtaskIds.length);
+        for (int subtaskId : subtaskIds) {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                epicSubtasks.add(subtask);
+            }
+        }
+        return epicSubtasks;
     }
 
     @Override
     public Epic getEpicById(int id) {
         Epic epic = epics.get(id);
         historyManager.addInHistory(epic);
+        versions.viewed(epic);
         return epic;
     }
 
@@ -210,6 +384,7 @@ public class InMemoryTaskManager implements TaskManager {
     public Task getTaskById(int id) {
         Task task = tasks.get(id);
         historyManager.addInHistory(task);
+        versions.viewed(task);
         return task;
     }
 
@@ -217,6 +392,7 @@ public class InMemoryTaskManager implements TaskManager {
     public Subtask getSubtaskById(int id) {
         Subtask subtask = subtasks.get(id);
         historyManager.addInHistory(subtask);
+        versions.viewed(subtask);
         return subtask;
     }
 
@@ -224,9 +400,14 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteEpicById(int id) {
         Epic epic = epics.get(id);
         if (epic != null) {
-            epic.getSubtaskIds().forEach(subtaskId -> {
+            if (versions.isActive()) {
+                List<Task> removed = new ArrayList<>(getEpicSubtasks(epic));
+                removed.add(epic);
+                versions.removed(removed);
+            }
+            epic.forEachSubtaskId(subtaskId -> {
                 historyManager.removeNode(subtaskId);
-                subtasks.remove(subtaskId);
+                unschedule(subtasks.remove(subtaskId));
             });
             historyManager.removeNode(id);
             epics.remove(id);
@@ -239,20 +420,24 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void deleteTaskById(int id) {
         historyManager.removeNode(id);
-        tasks.remove(id);
+        Task task = tasks.remove(id);
+        unschedule(task);
+        if (task != null) {
+            versions.removed(List.of(task));
+        }
     }
 
     @Override
     public void deleteSubtaskById(int id) {
         Subtask subtask = subtasks.get(id);
-        int subtaskEpicId = subtask.getEpicId();
         if (subtask != null) {
             historyManager.removeNode(id);
-            subtasks.remove(id);
-            updateEpicStatus(subtaskEpicId);
-            updateEpicStartTime(subtaskEpicId);
-            updateEpicDuration(subtaskEpicId);
-            updateEpicEndTime(subtaskEpicId);
+            unschedule(subtasks.remove(id));
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.removeSubtask(subtask);
+            }
+            versions.removed(List.of(subtask), epic);
             System.out.println("Подзадача с id=" + id + " успешно удалена.");
         } else {
             System.out.println("Отсутствует подзадача с таким id.");
@@ -262,7 +447,15 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void updateTask(Task task) {
         if (tasks.containsKey(task.getId())) {
+            Task previous = tasks.get(task.getId());
+            unschedule(previous);
+            if (intersectWithOtherTasks(task)) {
+                schedule(previous);
+                throw new IntersectWithOtherTaskException("Невозможно обновить задачу! Пересечение времени с другой задачей.");
+            }
             tasks.put(task.getId(), task);
+            schedule(task);
+            versions.changed(task);
             System.out.println("Обновление задачи с id=" + task.getId() + " выполнено успешно.");
         } else {
             System.out.println("Отсутствует задача с таким id для обновления.");
@@ -272,7 +465,9 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void updateEpic(Epic epic) {
         if (epics.containsKey(epic.getId())) {
+            epic.takeSubtasksFrom(epics.get(epic.getId()));
             epics.put(epic.getId(), epic);
+            versions.changed(epic);
             System.out.println("Обновление эпика с id=" + epic.getId() + " выполнено успешно.");
         } else {
             System.out.println("Отсутствует эпик с таким id для обновления.");
@@ -283,39 +478,111 @@ public class InMemoryTaskManager implements TaskManager {
     public void updateSubtask(Subtask subtask) {
         int subtaskEpicId = subtask.getEpicId();
         if (subtasks.containsKey(subtask.getId())) {
+            Subtask previous = subtasks.get(subtask.getId());
+            unschedule(previous);
+            if (intersectWithOtherTasks(subtask)) {
+                schedule(previous);
+                throw new IntersectWithOtherTaskException("Невозможно обновить подзадачу! Пересечение времени с другой задачей.");
+            }
             subtasks.put(subtask.getId(), subtask);
-            updateEpicStatus(subtaskEpicId);
-            updateEpicStartTime(subtaskEpicId);
-            updateEpicDuration(subtaskEpicId);
-            updateEpicEndTime(subtaskEpicId);
+            schedule(subtask);
+            Epic previousEpic = epics.get(previous.getEpicId());
+            Epic epic = epics.get(subtaskEpicId);
+            if (previousEpic != null && previousEpic == epic) {
+                epic.replaceSubtask(previous, subtask);
+            } else {
+                if (previousEpic != null) {
+                    previousEpic.removeSubtask(previous);
+                }
+                if (epic != null) {
+                    epic.addSubtask(subtask);
+                }
+            }
+            versions.changed(subtask, previousEpic, epic);
             System.out.println("Обновление подзадачи с id=" + subtask.getId() + " выполнено успешно.");
         } else {
             System.out.println("Отсутствует подзадача с таким id для обновления.");
         }
     }
 
-    private boolean intersectWithOtherTasks(Task externalTask) {
-        LocalDateTime externalTaskStartTime = externalTask.getStartTime();
-        LocalDateTime externalTaskEndTime = externalTask.getEndTime();
+    @Override
+    public LocalDateTime findNextFreeSlot(Duration length, LocalDateTime notBefore) {
+        checkSlotLength(length);
+        if (notBefore == null) {
+            throw new IllegalArgumentException("Не задано время, с которого искать свободный интервал.");
+        }
+        return timeIndex.findFreeStart(notBefore, length, null);
+    }
 
-        // Если у внешней задачи нет времени - не проверяем пересечения
-        if (externalTaskStartTime == null || externalTaskEndTime == null) {
-            return false;
+    @Override
+    public List<LocalDateTime> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration length, int limit) {
+        checkWindow(from, to);
+        checkSlotLength(length);
+        checkSlotLimit(limit);
+        List<LocalDateTime> slots = new ArrayList<>();
+        LocalDateTime cursor = from;
+        while (slots.size() < limit) {
+            LocalDateTime start = timeIndex.findFreeStart(cursor, length, to);
+            if (start == null) {
+                break;
+            }
+            slots.add(start);
+            cursor = start.plus(length);
         }
+        return slots;
+    }
 
-        return getPrioritizedTasks().stream()
-                .anyMatch(task -> {
-                    LocalDateTime taskStartTime = task.getStartTime();
-                    LocalDateTime taskEndTime = task.getEndTime();
+    private void checkSlotLength(Duration length) {
+        if (length == null || length.isNegative() || length.isZero()) {
+            throw new IllegalArgumentException("Длительность свободного интервала должна быть положительной: " + length);
+        }
+    }
 
-                    // Пропускаем задачи без времени
-                    if (taskStartTime == null || taskEndTime == null) {
-                        return false;
-                    }
+    private void checkSlotLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Число свободных интервалов должно быть положительным: " + limit);
+        }
+    }
 
-                    // Проверяем пересечение интервалов
-                    return externalTaskStartTime.isBefore(taskEndTime) &&
-                            externalTaskEndTime.isAfter(taskStartTime);
-                });
+    /*
+     * Хранилища обходятся в порядке хеш-таблицы, поэтому списки для вызывающих упорядочиваются по id:
+     * каждый вызов getTasks/getEpics/getSubtasks копирует хранилище и сортирует его за O(n log n).
+     * Частым читателям лучше подходит snapshot(): его списки строятся обходом по возрастанию id без сортировки.
+     */
+    static <T extends Task> ArrayList<T> sortedById(Collection<T> values) {
+        ArrayList<T> sorted = new ArrayList<>(values);
+        sorted.sort(Comparator.comparingInt(Task::getId));
+        return sorted;
+    }
+
+    private void checkWindow(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("Некорректное временное окно: " + from + " - " + to);
+        }
+    }
+
+    private void schedule(Task task) {
+        timeIndex.add(task);
+        if (slotGrid != null) {
+            slotGrid.reserve(task);
+        }
+    }
+
+    private void unschedule(Task task) {
+        timeIndex.remove(task);
+        if (slotGrid != null) {
+            slotGrid.release(task);
+        }
+    }
+
+    private boolean intersectWithOtherTasks(Task externalTask) {
+        if (slotGrid != null) {
+            TimeSlotGrid.Occupancy occupancy = slotGrid.probe(externalTask.getStartTime(), externalTask.getEndTime());
+            if (occupancy != TimeSlotGrid.Occupancy.UNCERTAIN) {
+                return occupancy == TimeSlotGrid.Occupancy.TAKEN;
+            }
+        }
+        // Если у внешней задачи нет времени - не проверяем пересечения
+        return timeIndex.findIntersection(externalTask.getStartTime(), externalTask.getEndTime()) != null;
     }
 }
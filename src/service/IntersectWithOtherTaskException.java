@@ -1,6 +1,29 @@
 package service;
 
+import model.Task;
+
+import java.util.List;
+
 public class IntersectWithOtherTaskException extends RuntimeException {
+
+    public record Conflict(Task task, Task conflictingTask) {
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    // Задачи не сериализуются, поэтому конфликты доступны только в исходном исключении
+    private final transient List<Conflict> conflicts;
+
     public IntersectWithOtherTaskException(String s) {
+        this(s, List.of());
+    }
+
+    public IntersectWithOtherTaskException(String s, List<Conflict> conflicts) {
+        super(s);
+        this.conflicts = List.copyOf(conflicts);
+    }
+
+    public List<Conflict> getConflicts() {
+        return conflicts;
     }
 }
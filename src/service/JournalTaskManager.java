@@ -0,0 +1,457 @@
+package service;
+
+import exceptions.ManagerSaveException;
+import model.*;
+import util.StringPool;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Менеджер с журналом изменений (write-ahead log). Каждое изменение дописывает в конец журнала
+ * одну короткую запись, поэтому стоимость записи не зависит от размера доски. При запуске на
+ * последнюю контрольную точку (файл в формате FileBackedTaskManager) накатываются записи журнала.
+ * Фоновый компактор периодически пишет новую контрольную точку из снимка и начинает журнал заново.
+ *
+ * Записи журнала: "P,<строка задачи>" - задача добавлена или изменена, "D,<id>" - задача удалена
+ * (эпик - вместе с подзадачами), "C,<тип>" - удалены все задачи этого типа. Каждая запись задает
+ * итоговое состояние, поэтому повторное применение уже учтенной в контрольной точке записи безопасно.
+ *
+ * Журнал и контрольная точка пишутся без fsync: запись сразу передается ОС и переживает сбой процесса,
+ * но при отключении питания последние записи могут пропасть. Оборванная последняя запись
+ * отбрасывается при запуске, поэтому журнал остается читаемым.
+ * Класс закрыт для наследования: конструктор накатывает журнал и запускает компактор, который сразу видит this.
+ */
+public final class JournalTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    private static final Duration DEFAULT_COMPACTION_INTERVAL = Duration.ofMinutes(1);
+    private static final String PUT = "P,";
+    private static final String DELETE = "D,";
+    private static final String CLEAR = "C,";
+
+    private final Path checkpointFile;
+    private final Path journalFile;
+    // Журнал, отложенный компактором до записи новой контрольной точки
+    private final Path rotatedJournalFile;
+    private final ScheduledExecutorService compactor;
+
+    private final Object journalLock = new Object();
+    private final Object compactionLock = new Object();
+    private Writer journal;
+    private int journalRecords;
+
+    public JournalTaskManager(File dataFile) {
+        this(dataFile, DEFAULT_COMPACTION_INTERVAL);
+    }
+
+    public JournalTaskManager(File dataFile, Duration compactionInterval) {
+        if (compactionInterval == null || compactionInterval.isNegative() || compactionInterval.isZero()) {
+            throw new IllegalArgumentException("Интервал компактизации должен быть положительным: " + compactionInterval);
+        }
+        this.checkpointFile = dataFile.toPath();
+        this.journalFile = Path.of(dataFile.getPath() + ".log");
+        this.rotatedJournalFile = Path.of(dataFile.getPath() + ".log.old");
+
+        TreeMap<Integer, Task> state = new TreeMap<>();
+        StringPool strings = new StringPool();
+        readCheckpoint(state, strings);
+        int replayed = replay(rotatedJournalFile, state, strings) + replay(journalFile, state, strings);
+        restoreAll(state.values());
+        // Компактор читает только снимки, поэтому снимок включается до его запуска
+        snapshot();
+        openJournal();
+        journalRecords = replayed;
+        if (replayed > 0) {
+            compact();
+        }
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = compactionInterval.toMillis();
+        compactor.scheduleWithFixedDelay(this::compactInBackground, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void addNewTask(Task task) {
+        super.addNewTask(task);
+        logPut(snapshot().getTaskById(task.getId()));
+    }
+
+    @Override
+    public void addNewEpic(Epic epic) {
+        super.addNewEpic(epic);
+        logPut(snapshot().getEpicById(epic.getId()));
+    }
+
+    @Override
+    public void addNewSubtask(Subtask subtask) {
+        super.addNewSubtask(subtask);
+        logPut(snapshot().getSubtaskById(subtask.getId()));
+    }
+
+    @Override
+    public void addAll(Collection<? extends Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        super.addAll(tasks);
+        TaskSnapshot snapshot = snapshot();
+        for (Task task : tasks) {
+            logPut(switch (task.getType()) {
+                case TASK -> snapshot.getTaskById(task.getId());
+                case EPIC -> snapshot.getEpicById(task.getId());
+                case SUBTASK -> snapshot.getSubtaskById(task.getId());
+            });
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        super.updateTask(task);
+        logPut(snapshot().getTaskById(task.getId()));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        super.updateEpic(epic);
+        logPut(snapshot().getEpicById(epic.getId()));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        super.updateSubtask(subtask);
+        logPut(snapshot().getSubtaskById(subtask.getId()));
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        super.deleteTaskById(id);
+        append(DELETE + id);
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        super.deleteEpicById(id);
+        append(DELETE + id);
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        super.deleteSubtaskById(id);
+        append(DELETE + id);
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        super.deleteAllTasks();
+        append(CLEAR + TaskType.TASK);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        super.deleteAllEpics();
+        append(CLEAR + TaskType.EPIC);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        super.deleteAllSubtasks();
+        append(CLEAR + TaskType.SUBTASK);
+    }
+
+    /*
+     * Пишет контрольную точку и начинает журнал заново. Под блокировкой журнала только берется снимок
+     * и журнал откладывается в сторону, сама контрольная точка пишется без задержки изменений.
+     * Если отложенный журнал остался от сбоя, контрольная точка пишется под блокировкой журнала.
+     */
+    public void compact() {
+        synchronized (compactionLock) {
+            TaskSnapshot snapshot;
+            int nextId;
+            synchronized (journalLock) {
+                if (journalRecords == 0 && !Files.exists(rotatedJournalFile)) {
+                    return;
+                }
+                snapshot = snapshot();
+                nextId = getIdHighWaterMark();
+                if (Files.exists(rotatedJournalFile)) {
+                    writeCheckpoint(snapshot, nextId);
+                    closeJournal();
+                    try {
+                        deleteFile(rotatedJournalFile);
+                        deleteFile(journalFile);
+                        journalRecords = 0;
+                    } finally {
+                        openJournal();
+                    }
+                    return;
+                }
+                // Если журнал не удалось отложить, он открывается снова, и изменения продолжают в него писаться
+                closeJournal();
+                try {
+                    moveFile(journalFile, rotatedJournalFile);
+                    journalRecords = 0;
+                } finally {
+                    openJournal();
+                }
+            }
+            writeCheckpoint(snapshot, nextId);
+            deleteFile(rotatedJournalFile);
+        }
+    }
+
+    // Останавливает компактор и сворачивает журнал в контрольную точку
+    @Override
+    public void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compact();
+        synchronized (journalLock) {
+            closeJournal();
+        }
+    }
+
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (ManagerSaveException e) {
+            // Журнал остается на месте, следующая попытка повторит компактизацию
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private void logPut(Task stored) {
+        // Неудачное изменение (например, обновление отсутствующей задачи) в журнал не попадает
+        if (stored != null) {
+            append(PUT + CsvTaskCodec.encode(stored));
+        }
+    }
+
+    private void append(String record) {
+        synchronized (journalLock) {
+            try {
+                journal.write(record);
+                journal.write(System.lineSeparator());
+                journal.flush();
+                journalRecords++;
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка записи в журнал: " + journalFile.getFileName(), e);
+            }
+        }
+    }
+
+    private void readCheckpoint(TreeMap<Integer, Task> state, StringPool strings) {
+        if (!Files.exists(checkpointFile)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+            reader.readLine(); // заголовок
+            String line;
+            while ((line = CsvTaskCodec.readRecord(reader)) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (line.startsWith(FileBackedTaskManager.NEXT_ID_PREFIX)) {
+                    reserveIdsUpTo(parseId(line.substring(FileBackedTaskManager.NEXT_ID_PREFIX.length())) - 1);
+                    continue;
+                }
+                Task task = FileBackedTaskManager.StringConverter.convertToTask(line, strings);
+                if (task != null) {
+                    state.put(task.getId(), task);
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка загрузки контрольной точки: " + checkpointFile.getFileName(), e);
+        }
+    }
+
+    /*
+     * Последняя запись могла оборваться при сбое во время дописывания. Запись считается целой, только
+     * если за ней записан перевод строки: оборванная запись часто тоже разбирается (от "D,13" остается
+     * "D,1"), поэтому последняя запись без перевода строки отбрасывается, даже если читается, и отрезается
+     * от файла, чтобы новые записи не легли после нее. Нечитаемая целая запись - это уже повреждение,
+     * и загрузка прерывается.
+     */
+    private int replay(Path file, TreeMap<Integer, Task> state, StringPool strings) {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        boolean terminated = endsWithLineBreak(file);
+        int records = 0;
+        String last = null;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = CsvTaskCodec.readRecord(reader)) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (last != null) {
+                    applyComplete(file, last, state, strings);
+                    records++;
+                }
+                last = line;
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения журнала: " + file.getFileName(), e);
+        }
+        if (last != null) {
+            if (terminated) {
+                applyComplete(file, last, state, strings);
+                records++;
+            } else {
+                System.out.println("Отброшена оборванная запись журнала: " + last);
+                truncate(file, records);
+            }
+        }
+        return records;
+    }
+
+    private void applyComplete(Path file, String record, TreeMap<Integer, Task> state, StringPool strings) {
+        try {
+            apply(record, state, strings);
+        } catch (IllegalArgumentException e) {
+            throw new ManagerSaveException("Повреждена запись журнала " + file.getFileName() + ": " + record, e);
+        }
+    }
+
+    // Пустой файл считается завершенным: в нем нет записи, которая могла оборваться
+    private static boolean endsWithLineBreak(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return true;
+            }
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, size - 1);
+            return last.get(0) == '\n';
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения журнала: " + file.getFileName(), e);
+        }
+    }
+
+    // Оставляет в журнале первые records записей: файл переписывается рядом и атомарно подменяется
+    private static void truncate(Path file, int records) {
+        Path temp = Path.of(file + ".tmp");
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            int copied = 0;
+            String line;
+            while (copied < records && (line = CsvTaskCodec.readRecord(reader)) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                writer.write(line);
+                writer.write(System.lineSeparator());
+                copied++;
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка восстановления журнала: " + file.getFileName(), e);
+        }
+        moveFile(temp, file);
+    }
+
+    // Бросает IllegalArgumentException, если запись не разбирается
+    private void apply(String record, TreeMap<Integer, Task> state, StringPool strings) {
+        if (record.length() < 2) {
+            throw new IllegalArgumentException("Слишком короткая запись: " + record);
+        }
+        String value = record.substring(2);
+        if (record.startsWith(PUT)) {
+            Task task = CsvTaskCodec.decode(value, strings);
+            state.put(task.getId(), task);
+        } else if (record.startsWith(DELETE)) {
+            int id = Integer.parseInt(value.trim());
+            if (state.remove(id) instanceof Epic) {
+                state.values().removeIf(task -> task instanceof Subtask subtask && subtask.getEpicId() == id);
+            }
+            reserveIdsUpTo(id);
+        } else if (record.startsWith(CLEAR)) {
+            TaskType type = TaskType.valueOf(value);
+            state.values().removeIf(task -> task.getType() == type
+                    || type == TaskType.EPIC && task.getType() == TaskType.SUBTASK);
+        } else {
+            System.out.println("Неизвестная запись журнала: " + record);
+        }
+    }
+
+    private void writeCheckpoint(TaskSnapshot snapshot, int nextId) {
+        Path temp = Path.of(checkpointFile + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(FileBackedTaskManager.HEADER + System.lineSeparator());
+            writer.write(FileBackedTaskManager.NEXT_ID_PREFIX + nextId + System.lineSeparator());
+            for (Collection<? extends Task> tasks : List.of(snapshot.getTasks(), snapshot.getEpics(), snapshot.getSubtasks())) {
+                for (Task task : tasks) {
+                    writer.write(CsvTaskCodec.encode(task));
+                    writer.write(System.lineSeparator());
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи контрольной точки: " + checkpointFile.getFileName(), e);
+        }
+        moveFile(temp, checkpointFile);
+    }
+
+    private void openJournal() {
+        try {
+            journal = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка открытия журнала: " + journalFile.getFileName(), e);
+        }
+    }
+
+    private void closeJournal() {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка закрытия журнала: " + journalFile.getFileName(), e);
+        }
+    }
+
+    private static void moveFile(Path from, Path to) {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка переименования файла: " + from.getFileName(), e);
+        }
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка удаления файла: " + file.getFileName(), e);
+        }
+    }
+
+    private static int parseId(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ManagerSaveException("Некорректный id в файле данных: " + value, e);
+        }
+    }
+}
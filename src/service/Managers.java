@@ -6,8 +6,21 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    // Потокобезопасный менеджер для обращений из нескольких потоков
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    // Менеджер с единственным потоком-писателем и очередью команд
+    public static CommandQueueTaskManager getCommandQueue() {
+        return new CommandQueueTaskManager(new InMemoryTaskManager());
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
 
+    public static HistoryManager getConcurrentHistory() {
+        return new ConcurrentHistoryManager();
+    }
 }
@@ -0,0 +1,125 @@
+package service;
+
+import exceptions.ManagerSaveException;
+import model.Task;
+import util.StringPool;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Разбор записей CSV на пуле fork-join. Разбор строки не зависит от остальных, поэтому записи делятся
+ * на куски и разбираются параллельно, а порядок результата совпадает с порядком записей.
+ * Связи подзадач с эпиками здесь не проверяются: их разрешает InMemoryTaskManager.restoreAll.
+ * Все потоки одного разбора делят один пул строк, так что повторяющиеся имена хранятся одной строкой.
+ */
+final class ParallelTaskLoader {
+    // Кусок, который разбирается в одном потоке без дальнейшего деления
+    private static final int CHUNK_SIZE = 2_048;
+
+    private ParallelTaskLoader() {
+    }
+
+    static List<Task> parse(List<String> records, ForkJoinPool pool) {
+        return pool.invoke(new ParseTask(records, 0, records.size(), new StringPool()));
+    }
+
+    // Каждый файл читается отдельной задачей пула, большие файлы дополнительно делятся на куски
+    static List<Task> parseFiles(List<Path> files, ForkJoinPool pool) {
+        return pool.invoke(new FilesTask(files, new StringPool()));
+    }
+
+    // Записи файла без заголовка; запись с переводом строки внутри кавычек остается одной записью
+    static List<String> readRecords(Path file) {
+        List<String> records = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (reader.readLine() == null) {
+                return records;
+            }
+            String line;
+            while ((line = CsvTaskCodec.readRecord(reader)) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    records.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка загрузки данных из файла: " + file.getFileName(), e);
+        }
+        return records;
+    }
+
+    // Задачи пула не сериализуются, поэтому ссылки на входные данные помечены transient
+    private static final class FilesTask extends RecursiveTask<List<Task>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Path> files;
+        private final transient StringPool strings;
+
+        FilesTask(List<Path> files, StringPool strings) {
+            this.files = files;
+            this.strings = strings;
+        }
+
+        @Override
+        protected List<Task> compute() {
+            List<ForkJoinTask<List<Task>>> parts = new ArrayList<>(files.size());
+            for (Path file : files) {
+                parts.add(ForkJoinTask.adapt(() -> {
+                    List<String> records = readRecords(file);
+                    return new ParseTask(records, 0, records.size(), strings).invoke();
+                }));
+            }
+            List<Task> result = new ArrayList<>();
+            for (ForkJoinTask<List<Task>> part : ForkJoinTask.invokeAll(parts)) {
+                result.addAll(part.join());
+            }
+            return result;
+        }
+    }
+
+    private static final class ParseTask extends RecursiveTask<List<Task>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<String> records;
+        private final int from;
+        private final int to;
+        private final transient StringPool strings;
+
+        ParseTask(List<String> records, int from, int to, StringPool strings) {
+            this.records = records;
+            this.from = from;
+            this.to = to;
+            this.strings = strings;
+        }
+
+        @Override
+        protected List<Task> compute() {
+            if (to - from <= CHUNK_SIZE) {
+                List<Task> parsed = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    Task task = FileBackedTaskManager.StringConverter.convertToTask(records.get(i), strings);
+                    if (task != null) {
+                        parsed.add(task);
+                    }
+                }
+                return parsed;
+            }
+            int middle = (from + to) >>> 1;
+            ParseTask left = new ParseTask(records, from, middle, strings);
+            left.fork();
+            List<Task> right = new ParseTask(records, middle, to, strings).compute();
+            List<Task> result = left.join();
+            result.addAll(right);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package service;
+
+import exceptions.ManagerSaveException;
+import model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.BufferedWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Менеджер, хранящий данные в каталоге сегментов: файл "<тип>-<номер>.<поколение>.csv" содержит задачи
+ * одного типа с id из диапазона [номер * segmentSize, (номер + 1) * segmentSize) в формате FileBackedTaskManager.
+ * Изменение помечает затронутые сегменты, и сохранение переписывает только их,
+ * поэтому правка одной задачи стоит O(сегмента), а не O(доски).
+ *
+ * Сегменты одного сохранения пишутся в новые файлы следующего поколения, а фиксирует их файл meta,
+ * который атомарно заменяется последним и перечисляет действующие файлы сегментов и границу выданных id.
+ * Загрузка читает только перечисленные в meta файлы, поэтому сбой посреди сохранения (например,
+ * удаления эпика вместе с подзадачами) оставляет доску в состоянии предыдущего сохранения целиком,
+ * а недописанные файлы удаляются. Каталог без поколения в meta читается по старым именам "<тип>-<номер>.csv".
+ * Каждый файл закрепляется на диске (fsync) до переименования, а сегменты - до записи meta:
+ * иначе после отключения питания meta могла бы ссылаться на еще не записанные сегменты.
+ *
+ * Статус и время эпика вычисляются из подзадач при загрузке, поэтому изменение подзадачи
+ * не переписывает сегмент ее эпика.
+ * Класс закрыт для наследования: конструктор загружает сегменты через методы InMemoryTaskManager.
+ */
+public final class SegmentedTaskManager extends InMemoryTaskManager {
+    private static final int DEFAULT_SEGMENT_SIZE = 1024;
+    private static final String META_FILE = "segments.meta";
+    private static final String GENERATION_PREFIX = "#generation=";
+    // Поколение 0 - файл старого формата без номера поколения в имени
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(task|epic|subtask)-(\\d+)(?:\\.(\\d+))?\\.csv");
+
+    private record Segment(TaskType type, int index) {
+
+        private String fileName(long generation) {
+            String name = type.name().toLowerCase(Locale.ROOT) + "-" + index;
+            return (generation == 0 ? name : name + "." + generation) + ".csv";
+        }
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    // Сегменты, измененные после последнего сохранения, и зафиксированное поколение файла каждого сегмента
+    private final Set<Segment> dirtySegments = new HashSet<>();
+    private Map<Segment, Long> committedSegments = new HashMap<>();
+    private long generation;
+    private int savedNextId;
+    private int batchDepth;
+
+    public SegmentedTaskManager(File directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public SegmentedTaskManager(File directory, int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Размер сегмента должен быть положительным: " + segmentSize);
+        }
+        this.directory = directory.toPath();
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка создания каталога: " + directory.getName(), e);
+        }
+        load();
+    }
+
+    @Override
+    public void addNewTask(Task task) {
+        super.addNewTask(task);
+        markStored(task);
+        save();
+    }
+
+    @Override
+    public void addNewEpic(Epic epic) {
+        super.addNewEpic(epic);
+        markStored(epic);
+        save();
+    }
+
+    @Override
+    public void addNewSubtask(Subtask subtask) {
+        super.addNewSubtask(subtask);
+        markStored(subtask);
+        save();
+    }
+
+    @Override
+    public void addAll(Collection<? extends Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        super.addAll(tasks);
+        tasks.forEach(this::markStored);
+        save();
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        super.updateTask(task);
+        markStored(task);
+        save();
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        super.updateEpic(epic);
+        markStored(epic);
+        save();
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        super.updateSubtask(subtask);
+        markStored(subtask);
+        save();
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        super.deleteTaskById(id);
+        mark(TaskType.TASK, id);
+        save();
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        if (findStored(TaskType.EPIC, id) instanceof Epic epic) {
+            epic.forEachSubtaskId(subtaskId -> mark(TaskType.SUBTASK, subtaskId));
+        }
+        super.deleteEpicById(id);
+        mark(TaskType.EPIC, id);
+        save();
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        super.deleteSubtaskById(id);
+        mark(TaskType.SUBTASK, id);
+        save();
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        super.deleteAllTasks();
+        markAll(TaskType.TASK);
+        save();
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        super.deleteAllEpics();
+        markAll(TaskType.EPIC);
+        markAll(TaskType.SUBTASK);
+        save();
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        super.deleteAllSubtasks();
+        markAll(TaskType.SUBTASK);
+        save();
+    }
+
+    @Override
+    void runBatch(Runnable batch) {
+        batchDepth++;
+        try {
+            batch.run();
+        } finally {
+            if (--batchDepth == 0) {
+                save();
+            }
+        }
+    }
+
+    // Неудачное изменение (например, подзадача без эпика) не оставляет id, и сегмент не помечается
+    private void markStored(Task task) {
+        if (findStored(task.getType(), task.getId()) != null) {
+            mark(task.getType(), task.getId());
+        }
+    }
+
+    private void mark(TaskType type, int id) {
+        dirtySegments.add(new Segment(type, id / segmentSize));
+    }
+
+    private void markAll(TaskType type) {
+        for (Segment segment : committedSegments.keySet()) {
+            if (segment.type() == type) {
+                dirtySegments.add(segment);
+            }
+        }
+    }
+
+    private void save() {
+        if (batchDepth > 0) {
+            return;
+        }
+        int nextId = getIdHighWaterMark();
+        if (dirtySegments.isEmpty() && nextId == savedNextId) {
+            return;
+        }
+        long nextGeneration = generation + 1;
+        Map<Segment, Long> written = new HashMap<>(committedSegments);
+        for (Segment segment : dirtySegments) {
+            if (writeSegment(segment, nextGeneration)) {
+                written.put(segment, nextGeneration);
+            } else {
+                written.remove(segment);
+            }
+        }
+        if (!dirtySegments.isEmpty()) {
+            FileBackedTaskManager.syncDirectory(directory.resolve(META_FILE));
+        }
+        writeMeta(nextId, nextGeneration, written);
+        FileBackedTaskManager.syncDirectory(directory.resolve(META_FILE));
+        // Сохранение зафиксировано; старые файлы переписанных сегментов больше не нужны
+        for (Segment segment : dirtySegments) {
+            Long previous = committedSegments.get(segment);
+            if (previous != null) {
+                deleteStale(directory.resolve(segment.fileName(previous)));
+            }
+        }
+        committedSegments = written;
+        generation = nextGeneration;
+        savedNextId = nextId;
+        dirtySegments.clear();
+    }
+
+    // Задачи сегмента ищутся по его диапазону id, без обхода всей доски; пустой сегмент файла не получает
+    private boolean writeSegment(Segment segment, long generation) {
+        List<String> lines = new ArrayList<>();
+        int from = segment.index() * segmentSize;
+        for (int id = from; id < from + segmentSize; id++) {
+            Task task = findStored(segment.type(), id);
+            if (task != null) {
+                lines.add(CsvTaskCodec.encode(task));
+            }
+        }
+        if (lines.isEmpty()) {
+            return false;
+        }
+        lines.addFirst(FileBackedTaskManager.HEADER);
+        writeFile(directory.resolve(segment.fileName(generation)), lines);
+        return true;
+    }
+
+    private void writeMeta(int nextId, long generation, Map<Segment, Long> segments) {
+        List<String> lines = new ArrayList<>(segments.size() + 2);
+        lines.add(FileBackedTaskManager.NEXT_ID_PREFIX + nextId);
+        lines.add(GENERATION_PREFIX + generation);
+        segments.forEach((segment, segmentGeneration) -> lines.add(segment.fileName(segmentGeneration)));
+        writeFile(directory.resolve(META_FILE), lines);
+    }
+
+    // Оставшийся файл не мешает загрузке: он не перечислен в meta и будет удален при следующем запуске
+    private void deleteStale(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.out.println("Не удалось удалить устаревший сегмент: " + file.getFileName());
+        }
+    }
+
+    private void writeFile(Path file, List<String> lines) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write(System.lineSeparator());
+                }
+                writer.flush();
+                channel.force(true);
+            }
+            FileBackedTaskManager.copyPermissions(file, temp);
+            FileBackedTaskManager.moveAtomically(temp, file);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сохранения сегмента: " + file.getFileName(), e);
+        }
+    }
+
+    // Файлы сегментов разбираются параллельно и склеиваются одной пачкой, эпики восстанавливаются первыми
+    private void load() {
+        List<Path> found = new ArrayList<>();
+        Map<Segment, Long> unversioned = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.csv")) {
+            for (Path file : stream) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    System.out.println("Пропущен файл, не являющийся сегментом: " + file.getFileName());
+                    continue;
+                }
+                Segment segment = new Segment(TaskType.valueOf(matcher.group(1).toUpperCase(Locale.ROOT)),
+                        Integer.parseInt(matcher.group(2)));
+                found.add(file);
+                if (matcher.group(3) == null) {
+                    unversioned.put(segment, 0L);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new ManagerSaveException("Ошибка чтения каталога: " + directory.getFileName(), e);
+        }
+
+        int nextId = loadMeta();
+        if (generation == 0) {
+            committedSegments = unversioned;
+        }
+        List<Path> files = new ArrayList<>(committedSegments.size());
+        committedSegments.forEach((segment, segmentGeneration) ->
+                files.add(directory.resolve(segment.fileName(segmentGeneration))));
+        restoreAll(ParallelTaskLoader.parseFiles(files, ForkJoinPool.commonPool()));
+        reserveIdsUpTo(nextId - 1);
+        savedNextId = getIdHighWaterMark();
+
+        // Файлы, не вошедшие в зафиксированное сохранение, остались от сбоя
+        Set<Path> committed = new HashSet<>(files);
+        for (Path file : found) {
+            if (!committed.contains(file)) {
+                deleteStale(file);
+            }
+        }
+    }
+
+    // Читает границу id и, если meta нового формата, поколение и список зафиксированных файлов сегментов
+    private int loadMeta() {
+        Path file = directory.resolve(META_FILE);
+        if (!Files.exists(file)) {
+            return 1;
+        }
+        int nextId = 1;
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (line.startsWith(FileBackedTaskManager.NEXT_ID_PREFIX)) {
+                    nextId = Integer.parseInt(line.substring(FileBackedTaskManager.NEXT_ID_PREFIX.length()).trim());
+                } else if (line.startsWith(GENERATION_PREFIX)) {
+                    generation = Long.parseLong(line.substring(GENERATION_PREFIX.length()).trim());
+                } else if (!line.isEmpty()) {
+                    Matcher matcher = SEGMENT_NAME.matcher(line);
+                    if (!matcher.matches()) {
+                        throw new ManagerSaveException("Неверная запись сегмента в " + META_FILE + ": " + line);
+                    }
+                    committedSegments.put(new Segment(TaskType.valueOf(matcher.group(1).toUpperCase(Locale.ROOT)),
+                                    Integer.parseInt(matcher.group(2))),
+                            matcher.group(3) != null ? Long.parseLong(matcher.group(3)) : 0L);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new ManagerSaveException("Ошибка загрузки файла " + META_FILE, e);
+        }
+        return nextId;
+    }
+}
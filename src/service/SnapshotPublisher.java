@@ -0,0 +1,120 @@
+package service;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Хранит текущую версию снимка и публикует новые версии через CAS. Пока снимок ни разу
+ * не запрашивали, версии не ведутся и изменения менеджера ничего не стоят.
+ *
+ * Просмотры по id не публикуются по одному: они копятся в неблокирующей очереди и переносятся
+ * в снимок одной версией - при накоплении порога, при запросе снимка или перед изменением,
+ * чтобы порядок просмотров и удалений в снимке совпадал с порядком вызовов.
+ */
+class SnapshotPublisher {
+    private static final int FOLD_THRESHOLD = 64;
+
+    private final AtomicReference<TaskSnapshot> current = new AtomicReference<>();
+    private final ConcurrentLinkedQueue<Integer> pendingViews = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ReentrantLock foldLock = new ReentrantLock();
+
+    TaskSnapshot current() {
+        foldViews();
+        return current.get();
+    }
+
+    // Первый снимок собирается целиком; если его уже опубликовал другой поток, возвращается тот
+    TaskSnapshot activate(Collection<Task> tasks, Collection<Epic> epics, Collection<Subtask> subtasks,
+                          List<Task> history) {
+        List<Task> frozen = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+        tasks.forEach(task -> frozen.add(task.copy()));
+        epics.forEach(epic -> frozen.add(epic.copy()));
+        subtasks.forEach(subtask -> frozen.add(subtask.copy()));
+        TaskSnapshot snapshot = TaskSnapshot.EMPTY.with(frozen)
+                .viewed(history.stream().mapToInt(Task::getId).toArray());
+        return current.compareAndSet(null, snapshot) ? snapshot : current.get();
+    }
+
+    boolean isActive() {
+        return current.get() != null;
+    }
+
+    void changed(Task... changed) {
+        removed(List.of(), changed);
+    }
+
+    void changed(Collection<? extends Task> changed) {
+        removed(List.of(), changed.toArray(new Task[0]));
+    }
+
+    // Удаление и сопутствующие изменения (например, эпика удаленной подзадачи) публикуются одной версией
+    void removed(Collection<? extends Task> removed, Task... changed) {
+        if (current.get() == null) {
+            return;
+        }
+        foldViews();
+        // Копии снимаются до CAS, чтобы повторные попытки не видели более поздних изменений
+        List<Task> frozen = new ArrayList<>(changed.length);
+        for (Task task : changed) {
+            if (task != null) {
+                frozen.add(task.copy());
+            }
+        }
+        int[] removedIds = removed.stream().mapToInt(Task::getId).toArray();
+        current.updateAndGet(snapshot -> snapshot != null ? snapshot.without(removedIds).with(frozen) : null);
+    }
+
+    void viewed(Task task) {
+        if (task == null || current.get() == null) {
+            return;
+        }
+        pendingViews.offer(task.getId());
+        // Если просмотры уже переносит другой поток, не ждем его - этот подхватится следующим переносом
+        if (pending.incrementAndGet() >= FOLD_THRESHOLD && foldLock.tryLock()) {
+            try {
+                fold();
+            } finally {
+                foldLock.unlock();
+            }
+        }
+    }
+
+    private void foldViews() {
+        if (pending.get() == 0) {
+            return;
+        }
+        foldLock.lock();
+        try {
+            fold();
+        } finally {
+            foldLock.unlock();
+        }
+    }
+
+    private void fold() {
+        int count = pending.get();
+        if (count == 0) {
+            return;
+        }
+        int[] ids = new int[count];
+        int taken = 0;
+        Integer id;
+        while (taken < count && (id = pendingViews.poll()) != null) {
+            ids[taken++] = id;
+        }
+        pending.addAndGet(-taken);
+        int[] batch = taken == count ? ids : Arrays.copyOf(ids, taken);
+        current.updateAndGet(snapshot -> snapshot != null ? snapshot.viewed(batch) : null);
+    }
+}
@@ -2,8 +2,13 @@ package service;
 
 import model.*;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface TaskManager {
     void deleteAllTasks();
@@ -18,12 +23,33 @@ public interface TaskManager {
 
     ArrayList<Subtask> getSubtasks();
 
+    // Живые представления только для чтения, без копирования
+    Collection<Task> getTasksView();
+
+    Collection<Epic> getEpicsView();
+
+    Collection<Subtask> getSubtasksView();
+
+    Stream<Task> streamTasks();
+
+    Stream<Epic> streamEpics();
+
+    Stream<Subtask> streamSubtasks();
+
+    void forEachTask(Consumer<? super Task> action);
+
+    void forEachEpic(Consumer<? super Epic> action);
+
+    void forEachSubtask(Consumer<? super Subtask> action);
+
     void addNewTask(Task task);
 
     void addNewEpic(Epic epic);
 
     void addNewSubtask(Subtask subtask);
 
+    void addAll(Collection<? extends Task> tasks);
+
     ArrayList<Subtask> getEpicSubtasks(Epic epic);
 
     Epic getEpicById(int id);
@@ -32,6 +58,9 @@ public interface TaskManager {
 
     Subtask getSubtaskById(int id);
 
+    // Задача по типу и id без записи в историю просмотров; null, если ее нет
+    Task findStored(TaskType type, int id);
+
     void deleteEpicById(int id);
 
     void deleteTaskById(int id);
@@ -45,4 +74,17 @@ public interface TaskManager {
     void updateSubtask(Subtask subtask);
 
     List<Task> getHistory();
+
+    // Неизменяемая согласованная версия всей доски; изменения менеджера на нее не влияют
+    TaskSnapshot snapshot();
+
+    List<Task> getPrioritizedTasks();
+
+    List<Task> getTasksInWindow(LocalDateTime from, LocalDateTime to);
+
+    int countTasksInWindow(LocalDateTime from, LocalDateTime to);
+
+    LocalDateTime findNextFreeSlot(Duration length, LocalDateTime notBefore);
+
+    List<LocalDateTime> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration length, int limit);
 }
@@ -0,0 +1,160 @@
+package service;
+
+import model.*;
+import util.PersistentIntMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Неизменяемая версия доски: задачи, эпики, подзадачи и история на момент снимка.
+ * Хранит замороженные копии задач в персистентных отображениях, поэтому новая версия
+ * отличается от предыдущей только измененными путями, а читатели снимка не мешают писателям.
+ */
+public final class TaskSnapshot {
+    static final TaskSnapshot EMPTY = new TaskSnapshot(0, PersistentIntMap.empty(), PersistentIntMap.empty(),
+            PersistentIntMap.empty(), PersistentIntMap.empty(), PersistentIntMap.empty(), 0);
+
+    private final long version;
+    private final PersistentIntMap<Task> tasks;
+    private final PersistentIntMap<Epic> epics;
+    private final PersistentIntMap<Subtask> subtasks;
+    // История: порядковый номер просмотра -> id и обратно
+    private final PersistentIntMap<Integer> historyBySeq;
+    private final PersistentIntMap<Integer> seqById;
+    private final int nextSeq;
+
+    private TaskSnapshot(long version, PersistentIntMap<Task> tasks, PersistentIntMap<Epic> epics,
+                         PersistentIntMap<Subtask> subtasks, PersistentIntMap<Integer> historyBySeq,
+                         PersistentIntMap<Integer> seqById, int nextSeq) {
+        this.version = version;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.historyBySeq = historyBySeq;
+        this.seqById = seqById;
+        this.nextSeq = nextSeq;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Task> getTasks() {
+        return toList(tasks);
+    }
+
+    public List<Epic> getEpics() {
+        return toList(epics);
+    }
+
+    public List<Subtask> getSubtasks() {
+        return toList(subtasks);
+    }
+
+    public Task getTaskById(int id) {
+        return tasks.get(id);
+    }
+
+    public Epic getEpicById(int id) {
+        return epics.get(id);
+    }
+
+    public Subtask getSubtaskById(int id) {
+        return subtasks.get(id);
+    }
+
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return List.of();
+        }
+        List<Subtask> epicSubtasks = new ArrayList<>(epic.getSubtaskCount());
+        for (int subtaskId : epic.getSubtaskIds()) {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                epicSubtasks.add(subtask);
+            }
+        }
+        return List.copyOf(epicSubtasks);
+    }
+
+    public List<Task> getHistory() {
+        List<Task> history = new ArrayList<>(historyBySeq.size());
+        historyBySeq.forEach(id -> {
+            Task task = find(id);
+            if (task != null) {
+                history.add(task);
+            }
+        });
+        return List.copyOf(history);
+    }
+
+    // Задачи передаются уже замороженными копиями
+    TaskSnapshot with(List<? extends Task> frozen) {
+        PersistentIntMap<Task> newTasks = tasks;
+        PersistentIntMap<Epic> newEpics = epics;
+        PersistentIntMap<Subtask> newSubtasks = subtasks;
+        for (Task task : frozen) {
+            if (task instanceof Epic epic) {
+                newEpics = newEpics.put(epic.getId(), epic);
+            } else if (task instanceof Subtask subtask) {
+                newSubtasks = newSubtasks.put(subtask.getId(), subtask);
+            } else {
+                newTasks = newTasks.put(task.getId(), task);
+            }
+        }
+        return new TaskSnapshot(version + 1, newTasks, newEpics, newSubtasks, historyBySeq, seqById, nextSeq);
+    }
+
+    // Удаляет задачи любого типа вместе с их записями в истории
+    TaskSnapshot without(int... ids) {
+        PersistentIntMap<Task> newTasks = tasks;
+        PersistentIntMap<Epic> newEpics = epics;
+        PersistentIntMap<Subtask> newSubtasks = subtasks;
+        PersistentIntMap<Integer> newHistory = historyBySeq;
+        PersistentIntMap<Integer> newSeqs = seqById;
+        for (int id : ids) {
+            newTasks = newTasks.remove(id);
+            newEpics = newEpics.remove(id);
+            newSubtasks = newSubtasks.remove(id);
+            Integer seq = newSeqs.get(id);
+            if (seq != null) {
+                newHistory = newHistory.remove(seq);
+                newSeqs = newSeqs.remove(id);
+            }
+        }
+        return new TaskSnapshot(version + 1, newTasks, newEpics, newSubtasks, newHistory, newSeqs, nextSeq);
+    }
+
+    // Просмотры применяются пачкой в порядке обращений и дают одну новую версию
+    TaskSnapshot viewed(int... ids) {
+        PersistentIntMap<Integer> newHistory = historyBySeq;
+        PersistentIntMap<Integer> newSeqs = seqById;
+        int seq = nextSeq;
+        for (int id : ids) {
+            Integer previousSeq = newSeqs.get(id);
+            if (previousSeq != null) {
+                newHistory = newHistory.remove(previousSeq);
+            }
+            newHistory = newHistory.put(seq, id);
+            newSeqs = newSeqs.put(id, seq);
+            seq++;
+        }
+        return new TaskSnapshot(version + 1, tasks, epics, subtasks, newHistory, newSeqs, seq);
+    }
+
+    private Task find(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        return task != null ? task : subtasks.get(id);
+    }
+
+    private static <T extends Task> List<T> toList(PersistentIntMap<T> map) {
+        List<T> list = new ArrayList<>(map.size());
+        map.forEach(list::add);
+        return List.copyOf(list);
+    }
+}
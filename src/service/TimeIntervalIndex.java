@@ -0,0 +1,247 @@
+package service;
+
+import model.Epic;
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+class TimeIntervalIndex {
+
+    private record Key(LocalDateTime start, LocalDateTime end, int id) implements Comparable<Key> {
+
+        private static Key lowest(LocalDateTime start) {
+            return new Key(start, LocalDateTime.MIN, Integer.MIN_VALUE);
+        }
+
+        private static Key of(Task task) {
+            LocalDateTime end = task.getEndTime();
+            return new Key(task.getStartTime(), end != null ? end : task.getStartTime(), task.getId());
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = start.compareTo(other.start);
+            if (result == 0) {
+                result = end.compareTo(other.end);
+            }
+            return result != 0 ? result : Integer.compare(id, other.id);
+        }
+    }
+
+    // Задачи с временем начала, упорядоченные по началу, окончанию и id
+    private final TreeMap<Key, Task> intervals = new TreeMap<>();
+    // Отсортированный снимок, пересобирается только после изменений; null - снимок устарел
+    private volatile List<Task> sortedSnapshot = List.of();
+
+    void add(Task task) {
+        if (task.getStartTime() != null) {
+            intervals.put(Key.of(task), task);
+            sortedSnapshot = null;
+        }
+    }
+
+    // Пакет сортируется один раз; если индекс был пуст, готовый порядок сразу становится снимком
+    void addAll(Collection<? extends Task> batch) {
+        @SuppressWarnings("unchecked")
+        Map.Entry<Key, Task>[] entries = batch.stream()
+                .filter(task -> task.getStartTime() != null)
+                .map(task -> Map.entry(Key.of(task), (Task) task))
+                .toArray(Map.Entry[]::new);
+        if (entries.length == 0) {
+            return;
+        }
+        boolean wasEmpty = intervals.isEmpty();
+        Arrays.parallelSort(entries, Map.Entry.comparingByKey());
+        List<Task> ordered = new ArrayList<>(entries.length);
+        for (Map.Entry<Key, Task> entry : entries) {
+            intervals.put(entry.getKey(), entry.getValue());
+            ordered.add(entry.getValue());
+        }
+        sortedSnapshot = wasEmpty ? Collections.unmodifiableList(ordered) : null;
+    }
+
+    void remove(Task task) {
+        if (task != null && task.getStartTime() != null && intervals.remove(Key.of(task)) != null) {
+            sortedSnapshot = null;
+        }
+    }
+
+    void clear() {
+        intervals.clear();
+        sortedSnapshot = List.of();
+    }
+
+    List<Task> sorted() {
+        List<Task> snapshot = sortedSnapshot;
+        if (snapshot == null) {
+            snapshot = List.copyOf(intervals.values());
+            sortedSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    // Готовый снимок без пересборки или null, если после последнего изменения его еще не собирали
+    List<Task> cachedSorted() {
+        return sortedSnapshot;
+    }
+
+    /*
+     * Сохраненные интервалы не пересекаются между собой, поэтому достаточно проверить
+     * ближайший интервал, начавшийся раньше, и интервалы, начинающиеся внутри [start, end).
+     */
+    Task findIntersection(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null) {
+            return null;
+        }
+
+        Task running = runningAt(start);
+        if (running != null) {
+            return running;
+        }
+
+        for (Task task : startingWithin(start, end).values()) {
+            if (task.getEndTime() != null && overlaps(task, start, end)) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    // Задачи, которые начинаются в окне [from, to) или начались раньше и еще выполняются в момент from
+    List<Task> findInWindow(LocalDateTime from, LocalDateTime to) {
+        NavigableMap<Key, Task> within = startingWithin(from, to);
+        Task running = runningAt(from);
+        if (running == null) {
+            return new ArrayList<>(within.values());
+        }
+        List<Task> result = new ArrayList<>(within.size() + 1);
+        result.add(running);
+        result.addAll(within.values());
+        return result;
+    }
+
+    int countInWindow(LocalDateTime from, LocalDateTime to) {
+        return startingWithin(from, to).size() + (runningAt(from) != null ? 1 : 0);
+    }
+
+    /*
+     * Пакет сортируется один раз и проверяется проходом по времени начала: против индекса и внутри себя.
+     * Задачи пакета, которые еще не закончились к началу текущей, держатся в очереди по времени окончания,
+     * поэтому задача, пересекающая несколько задач пакета, дает конфликт с каждой из них.
+     */
+    List<IntersectWithOtherTaskException.Conflict> findConflicts(Collection<? extends Task> batch) {
+        Comparator<Task> byStart = Comparator.comparing(Task::getStartTime).thenComparing(Task::getEndTime)
+                .thenComparingInt(Task::getId);
+        List<? extends Task> timed = batch.stream()
+                .filter(task -> !(task instanceof Epic))
+                .filter(task -> task.getStartTime() != null && task.getEndTime() != null)
+                .sorted(byStart)
+                .toList();
+
+        List<IntersectWithOtherTaskException.Conflict> conflicts = new ArrayList<>();
+        PriorityQueue<Task> active = new PriorityQueue<>(Comparator.comparing(Task::getEndTime));
+        List<Task> overlapping = new ArrayList<>();
+        for (Task task : timed) {
+            for (Task existing : findIntersections(task.getStartTime(), task.getEndTime())) {
+                conflicts.add(new IntersectWithOtherTaskException.Conflict(task, existing));
+            }
+            while (!active.isEmpty() && !active.peek().getEndTime().isAfter(task.getStartTime())) {
+                active.poll();
+            }
+            // Задача нулевой длины пересекает только интервалы, начавшиеся строго раньше нее
+            boolean empty = !task.getEndTime().isAfter(task.getStartTime());
+            for (Task earlier : active) {
+                if (!empty || earlier.getStartTime().isBefore(task.getStartTime())) {
+                    overlapping.add(earlier);
+                }
+            }
+            overlapping.sort(byStart);
+            for (Task earlier : overlapping) {
+                conflicts.add(new IntersectWithOtherTaskException.Conflict(task, earlier));
+            }
+            overlapping.clear();
+            active.add(task);
+        }
+        return conflicts;
+    }
+
+    // Все задачи индекса, пересекающие [start, end)
+    private List<Task> findIntersections(LocalDateTime start, LocalDateTime end) {
+        List<Task> found = new ArrayList<>(1);
+        Task running = runningAt(start);
+        if (running != null) {
+            found.add(running);
+        }
+        for (Task task : startingWithin(start, end).values()) {
+            if (task.getEndTime() != null && overlaps(task, start, end)) {
+                found.add(task);
+            }
+        }
+        return found;
+    }
+
+    /*
+     * Идет по промежуткам между интервалами, начиная с notBefore, и возвращает первое время начала,
+     * с которого свободен отрезок длины length. Если задан limit, отрезок должен закончиться не позже него.
+     */
+    LocalDateTime findFreeStart(LocalDateTime notBefore, Duration length, LocalDateTime limit) {
+        LocalDateTime candidate = notBefore;
+        Task running = runningAt(candidate);
+        if (running != null) {
+            candidate = running.getEndTime();
+        }
+
+        for (Task task : intervals.tailMap(Key.lowest(candidate), true).values()) {
+            if (task.getEndTime() == null) {
+                continue;
+            }
+            LocalDateTime candidateEnd = candidate.plus(length);
+            if (limit != null && candidateEnd.isAfter(limit)) {
+                return null;
+            }
+            if (!task.getStartTime().isBefore(candidateEnd)) {
+                return candidate;
+            }
+            if (task.getEndTime().isAfter(candidate)) {
+                candidate = task.getEndTime();
+            }
+        }
+        return limit == null || !candidate.plus(length).isAfter(limit) ? candidate : null;
+    }
+
+    private NavigableMap<Key, Task> startingWithin(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return Collections.emptyNavigableMap();
+        }
+        return intervals.subMap(Key.lowest(from), true, Key.lowest(to), false);
+    }
+
+    private Task runningAt(LocalDateTime time) {
+        Task before = lastTimedBefore(time);
+        return before != null && before.getEndTime().isAfter(time) ? before : null;
+    }
+
+    // Среди непересекающихся интервалов, начавшихся раньше time, дальше всех заканчивается последний
+    private Task lastTimedBefore(LocalDateTime time) {
+        Map.Entry<Key, Task> before = intervals.lowerEntry(Key.lowest(time));
+        while (before != null && before.getValue().getEndTime() == null) {
+            before = intervals.lowerEntry(before.getKey());
+        }
+        return before != null ? before.getValue() : null;
+    }
+
+    private static boolean overlaps(Task task, LocalDateTime start, LocalDateTime end) {
+        return start.isBefore(task.getEndTime()) && end.isAfter(task.getStartTime());
+    }
+}
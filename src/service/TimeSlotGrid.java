@@ -0,0 +1,187 @@
+package service;
+
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+
+/*
+ * Битовая карта занятости горизонта планирования: сутки делятся на слоты фиксированной длины,
+ * каждому дню соответствует несколько слов long. Задачи, выровненные по сетке, резервируют
+ * свои слоты точно. Остальные задачи помечают затронутые слоты как "неточные" - для таких
+ * слотов требуется точная проверка по TimeIntervalIndex.
+ */
+class TimeSlotGrid {
+
+    enum Occupancy {
+        FREE,
+        TAKEN,
+        UNCERTAIN
+    }
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static class Day {
+        private final long[] taken;
+        private final long[] uncertain;
+        // Счетчики неточных задач на слот, создаются только при появлении таких задач
+        private int[] uncertainCounts;
+
+        private Day(int slotsPerDay) {
+            int words = (slotsPerDay + Long.SIZE - 1) / Long.SIZE;
+            taken = new long[words];
+            uncertain = new long[words];
+        }
+
+        private boolean isEmpty() {
+            for (int i = 0; i < taken.length; i++) {
+                if (taken[i] != 0 || uncertain[i] != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private interface DayRangeAction {
+        boolean apply(Day day, int from, int to);
+    }
+
+    private final int slotMinutes;
+    private final int slotsPerDay;
+    private final HashMap<Long, Day> days = new HashMap<>();
+
+    TimeSlotGrid(Duration slotLength) {
+        long minutes = slotLength.toMinutes();
+        if (minutes <= 0 || !slotLength.equals(Duration.ofMinutes(minutes)) || MINUTES_PER_DAY % minutes != 0) {
+            throw new IllegalArgumentException("Длина слота должна делить сутки на целое число минут: " + slotLength);
+        }
+        this.slotMinutes = (int) minutes;
+        this.slotsPerDay = MINUTES_PER_DAY / slotMinutes;
+    }
+
+    Occupancy probe(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null) {
+            return Occupancy.FREE;
+        }
+        if (!isAligned(start, end)) {
+            return Occupancy.UNCERTAIN;
+        }
+        long from = slotOf(start);
+        long to = slotOf(end);
+        if (anyInRange(from, to, false)) {
+            return Occupancy.TAKEN;
+        }
+        return anyInRange(from, to, true) ? Occupancy.UNCERTAIN : Occupancy.FREE;
+    }
+
+    void reserve(Task task) {
+        update(task, true);
+    }
+
+    void release(Task task) {
+        update(task, false);
+    }
+
+    private void update(Task task, boolean reserve) {
+        if (task == null || task.getStartTime() == null || task.getEndTime() == null) {
+            return;
+        }
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+        if (isAligned(start, end)) {
+            forEachDay(slotOf(start), slotOf(end), reserve, (day, from, to) -> {
+                setBits(day.taken, from, to, reserve);
+                return false;
+            });
+            return;
+        }
+        long from = slotOf(start);
+        long to = Math.max(ceilSlotOf(end), from + 1);
+        forEachDay(from, to, reserve, (day, lo, hi) -> {
+            if (day.uncertainCounts == null) {
+                day.uncertainCounts = new int[slotsPerDay];
+            }
+            for (int slot = lo; slot < hi; slot++) {
+                int count = day.uncertainCounts[slot] += reserve ? 1 : -1;
+                if (count == 0 || (reserve && count == 1)) {
+                    setBits(day.uncertain, slot, slot + 1, reserve);
+                }
+            }
+            return false;
+        });
+    }
+
+    private boolean anyInRange(long from, long to, boolean uncertain) {
+        return forEachDay(from, to, false, (day, lo, hi) -> testBits(uncertain ? day.uncertain : day.taken, lo, hi));
+    }
+
+    // Обходит дни диапазона слотов [from, to); останавливается, если действие вернуло true
+    private boolean forEachDay(long from, long to, boolean create, DayRangeAction action) {
+        long slot = from;
+        while (slot < to) {
+            long dayNumber = Math.floorDiv(slot, slotsPerDay);
+            long dayStart = dayNumber * slotsPerDay;
+            int lo = (int) (slot - dayStart);
+            int hi = (int) (Math.min(to, dayStart + slotsPerDay) - dayStart);
+            Day day = create ? days.computeIfAbsent(dayNumber, key -> new Day(slotsPerDay)) : days.get(dayNumber);
+            if (day != null) {
+                if (action.apply(day, lo, hi)) {
+                    return true;
+                }
+                if (!create && day.isEmpty()) {
+                    days.remove(dayNumber);
+                }
+            }
+            slot = dayStart + slotsPerDay;
+        }
+        return false;
+    }
+
+    private boolean isAligned(LocalDateTime start, LocalDateTime end) {
+        return start.isBefore(end) && isOnGrid(start) && isOnGrid(end);
+    }
+
+    private boolean isOnGrid(LocalDateTime time) {
+        return time.getSecond() == 0 && time.getNano() == 0
+                && (time.getHour() * 60 + time.getMinute()) % slotMinutes == 0;
+    }
+
+    private long slotOf(LocalDateTime time) {
+        return Math.floorDiv(epochMinute(time), slotMinutes);
+    }
+
+    private long ceilSlotOf(LocalDateTime time) {
+        long slot = slotOf(time);
+        return isOnGrid(time) ? slot : slot + 1;
+    }
+
+    private static long epochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static void setBits(long[] words, int from, int to, boolean value) {
+        for (int word = from / Long.SIZE; word <= (to - 1) / Long.SIZE; word++) {
+            long mask = rangeMask(word, from, to);
+            words[word] = value ? words[word] | mask : words[word] & ~mask;
+        }
+    }
+
+    private static boolean testBits(long[] words, int from, int to) {
+        for (int word = from / Long.SIZE; word <= (to - 1) / Long.SIZE; word++) {
+            if ((words[word] & rangeMask(word, from, to)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long rangeMask(int word, int from, int to) {
+        int lo = Math.max(from - word * Long.SIZE, 0);
+        int hi = Math.min(to - word * Long.SIZE, Long.SIZE);
+        long upper = hi == Long.SIZE ? -1L : (1L << hi) - 1;
+        return upper & (-1L << lo);
+    }
+}
@@ -0,0 +1,265 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/*
+ * Отображение int -> объект без упаковки ключей: два параллельных массива,
+ * открытая адресация с линейным пробированием. Значения null не допускаются,
+ * поэтому get возвращает null только для отсутствующего ключа.
+ *
+ * Ключи перемешиваются так же, как в IntHashSet: последовательные id иначе легли бы одной
+ * сплошной серией ячеек, и каждое удаление сдвигало бы хвост серии целиком.
+ * Порядок обхода поэтому не совпадает с порядком id.
+ */
+public class IntObjectHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private Object[] values;
+    private V zeroValue;
+    private int size;
+    private int resizeThreshold;
+    // Число структурных изменений (добавление и удаление ключей) - для обнаружения изменений во время обхода
+    private int modCount;
+
+    public IntObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public V get(int key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+        int slot = findSlot(key);
+        return slot >= 0 ? valueAt(slot) : null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Значение не может быть null");
+        }
+        if (key == 0) {
+            V previous = zeroValue;
+            zeroValue = value;
+            if (previous == null) {
+                size++;
+                modCount++;
+            }
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int slot = IntHashSet.mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                V previous = valueAt(slot);
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        modCount++;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    public V remove(int key) {
+        if (key == 0) {
+            V previous = zeroValue;
+            if (previous != null) {
+                zeroValue = null;
+                size--;
+                modCount++;
+            }
+            return previous;
+        }
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = valueAt(slot);
+        shiftKeysBack(slot);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        zeroValue = null;
+        size = 0;
+        modCount++;
+    }
+
+    public void forEachKey(IntConsumer action) {
+        if (zeroValue != null) {
+            action.accept(0);
+        }
+        for (int key : keys) {
+            if (key != 0) {
+                action.accept(key);
+            }
+        }
+    }
+
+    public void forEachValue(Consumer<? super V> action) {
+        int expectedModCount = modCount;
+        if (zeroValue != null) {
+            action.accept(zeroValue);
+        }
+        int[] tableKeys = keys;
+        for (int slot = 0; slot < tableKeys.length && modCount == expectedModCount; slot++) {
+            if (tableKeys[slot] != 0) {
+                action.accept(valueAt(slot));
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /*
+     * Живое представление значений только для чтения. Как и у коллекций JDK, добавление
+     * или удаление ключей во время обхода приводит к ConcurrentModificationException.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void forEach(Consumer<? super V> action) {
+                forEachValue(action);
+            }
+        };
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        private final int[] tableKeys = keys;
+        private final int expectedModCount = modCount;
+        private int slot = zeroValue != null ? -1 : nextSlot(0);
+
+        @Override
+        public boolean hasNext() {
+            return slot < tableKeys.length;
+        }
+
+        @Override
+        public V next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            V value = slot < 0 ? zeroValue : valueAt(slot);
+            slot = nextSlot(slot + 1);
+            return value;
+        }
+
+        private int nextSlot(int from) {
+            int next = from;
+            while (next < tableKeys.length && tableKeys[next] == 0) {
+                next++;
+            }
+            return next;
+        }
+    }
+
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int slot = IntHashSet.mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    private void shiftKeysBack(int freeSlot) {
+        int mask = keys.length - 1;
+        int free = freeSlot;
+        int slot = (free + 1) & mask;
+        while (keys[slot] != 0) {
+            int home = IntHashSet.mix(keys[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - free) & mask)) {
+                keys[free] = keys[slot];
+                values[free] = values[slot];
+                free = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[free] = 0;
+        values[free] = null;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = IntHashSet.mix(oldKeys[i]) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), DEFAULT_CAPACITY) - 1) << 1;
+        return Math.max(capacity, DEFAULT_CAPACITY);
+    }
+}
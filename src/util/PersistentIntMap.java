@@ -0,0 +1,148 @@
+package util;
+
+import java.util.function.Consumer;
+
+/*
+ * Неизменяемое отображение int -> объект со структурным разделением: put и remove возвращают
+ * новое отображение, копируя только узлы на пути к ключу, остальные узлы общие со старой версией.
+ * Префиксное дерево по 5 бит ключа начиная со старших с битовыми масками у узлов (как в HAMT),
+ * поэтому неотрицательные ключи обходятся в порядке возрастания.
+ */
+public final class PersistentIntMap<V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int TOP_SHIFT = 30;
+
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null, 0);
+
+    // На нижнем уровне (shift == 0) children хранит значения, на остальных - дочерние узлы
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] children;
+
+        private Node(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    private final Node root;
+    private final int size;
+
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        Node node = root;
+        for (int shift = TOP_SHIFT; node != null; shift -= BITS) {
+            int bit = bitFor(key, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object child = node.children[node.index(bit)];
+            if (shift == 0) {
+                return (V) child;
+            }
+            node = (Node) child;
+        }
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    public PersistentIntMap<V> put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Значение не может быть null");
+        }
+        boolean added = get(key) == null;
+        return new PersistentIntMap<>(put(root, TOP_SHIFT, key, value), added ? size + 1 : size);
+    }
+
+    public PersistentIntMap<V> remove(int key) {
+        if (get(key) == null) {
+            return this;
+        }
+        return new PersistentIntMap<>(remove(root, TOP_SHIFT, key), size - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(Consumer<? super V> action) {
+        if (root != null) {
+            forEach(root, TOP_SHIFT, action);
+        }
+    }
+
+    private static Node put(Node node, int shift, int key, Object value) {
+        int bit = bitFor(key, shift);
+        if (node == null) {
+            Object child = shift == 0 ? value : put(null, shift - BITS, key, value);
+            return new Node(bit, new Object[]{child});
+        }
+        int index = node.index(bit);
+        if ((node.bitmap & bit) != 0) {
+            Object[] children = node.children.clone();
+            children[index] = shift == 0 ? value : put((Node) children[index], shift - BITS, key, value);
+            return new Node(node.bitmap, children);
+        }
+        Object[] children = new Object[node.children.length + 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        children[index] = shift == 0 ? value : put(null, shift - BITS, key, value);
+        System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+        return new Node(node.bitmap | bit, children);
+    }
+
+    // Ключ гарантированно присутствует; опустевшие узлы удаляются
+    private static Node remove(Node node, int shift, int key) {
+        int bit = bitFor(key, shift);
+        int index = node.index(bit);
+        Object child = shift == 0 ? null : remove((Node) node.children[index], shift - BITS, key);
+        if (child != null) {
+            Object[] children = node.children.clone();
+            children[index] = child;
+            return new Node(node.bitmap, children);
+        }
+        if (node.children.length == 1) {
+            return null;
+        }
+        Object[] children = new Object[node.children.length - 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        System.arraycopy(node.children, index + 1, children, index, children.length - index);
+        return new Node(node.bitmap & ~bit, children);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> void forEach(Node node, int shift, Consumer<? super V> action) {
+        for (Object child : node.children) {
+            if (shift == 0) {
+                action.accept((V) child);
+            } else {
+                forEach((Node) child, shift - BITS, action);
+            }
+        }
+    }
+
+    private static int bitFor(int key, int shift) {
+        return 1 << ((key >>> shift) & MASK);
+    }
+}
@@ -0,0 +1,47 @@
+package util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Пул для дедупликации строк при загрузке: одинаковые имена и описания множества задач
+ * хранятся одной строкой. Принадлежит загрузчику и живет одну загрузку, поэтому, в отличие
+ * от String.intern, не засоряет общую таблицу строк JVM. Размер ограничен: после заполнения
+ * новые строки возвращаются как есть. Пул потокобезопасен - его делят потоки параллельного разбора,
+ * и под конкурентной вставкой размер может превысить предел на число потоков.
+ */
+public final class StringPool {
+    private static final int DEFAULT_MAX_SIZE = 4_096;
+
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    public StringPool() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public StringPool(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер пула строк должен быть положительным: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    public String dedupe(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = strings.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (strings.size() >= maxSize) {
+            return value;
+        }
+        pooled = strings.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    public int size() {
+        return strings.size();
+    }
+}
@@ -0,0 +1,87 @@
+package benchmark;
+
+import model.*;
+import service.FileBackedTaskManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/*
+ * Пропускная способность разбора и записи строк CSV: прежний StringConverter (split, DateTimeFormatter
+ * на каждую запись, String.format) против нового кодека, к которому сейчас обращается StringConverter.
+ * Запуск: java -cp <classes> benchmark.CsvCodecBenchmark [строк] [проходов]
+ */
+public class CsvCodecBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<Task> tasks = new ArrayList<>(count);
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < count; i++) {
+            Task task = new Task("Task " + i, "Description " + i, Status.NEW, Duration.ofMinutes(30 + i % 90), baseTime.plusHours(i));
+            task.setId(i + 1);
+            tasks.add(task);
+        }
+        List<String> lines = tasks.stream().map(FileBackedTaskManager.StringConverter::convertToString).toList();
+
+        for (int round = 1; round <= rounds; round++) {
+            System.out.printf("проход %d: запись %s / %s, разбор %s / %s (прежний / новый)%n", round,
+                    rate(tasks, LegacyConverter::convertToString), rate(tasks, FileBackedTaskManager.StringConverter::convertToString),
+                    rate(lines, LegacyConverter::convertToTask), rate(lines, FileBackedTaskManager.StringConverter::convertToTask));
+        }
+    }
+
+    private static <T> String rate(List<T> input, Function<T, ?> action) {
+        long start = System.nanoTime();
+        int checksum = 0;
+        for (T value : input) {
+            checksum += action.apply(value).hashCode();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (checksum == 42) {
+            System.out.println();
+        }
+        return String.format("%,.0f строк/с", input.size() / seconds);
+    }
+
+    // Прежняя реализация StringConverter, оставлена только для сравнения
+    private static class LegacyConverter {
+
+        static Task convertToTask(String value) {
+            String[] fields = value.split(",", -1);
+            int id = Integer.parseInt(fields[0]);
+            TaskType taskType = TaskType.valueOf(fields[1]);
+            String name = fields[2];
+            Status status = Status.valueOf(fields[3]);
+            String description = fields[4];
+            Duration duration = parseCustomFormat(fields[5]);
+            LocalDateTime startTime = LocalDateTime.parse(fields[6], DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm"));
+            Task task = switch (taskType) {
+                case TASK -> new Task(name, description, status, duration, startTime);
+                case EPIC -> new Epic(name, description, duration, startTime);
+                case SUBTASK -> new Subtask(name, description, status, duration, startTime, Integer.parseInt(fields[8]));
+            };
+            task.setId(id);
+            return task;
+        }
+
+        static String convertToString(Task task) {
+            return task.getId() + "," + task.getType() + "," + task.getName() + "," + task.getStatus() + ","
+                    + task.getDescription() + "," + task.getDurationConverted() + "," + task.getStartTimeConverted()
+                    + "," + task.getEndTimeConverted();
+        }
+
+        private static Duration parseCustomFormat(String timeString) {
+            String[] parts = timeString.split(":");
+            return Duration.ofHours(Long.parseLong(parts[0]))
+                    .plusMinutes(Long.parseLong(parts[1]))
+                    .plusSeconds(Long.parseLong(parts[2]));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package benchmark;
+
+import model.Status;
+import model.Task;
+import service.FileBackedTaskManager;
+import service.FileBackedTaskManager.Durability;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Цена надежности сохранения: задержка изменения FileBackedTaskManager в режимах NONE, FSYNC и GROUP_COMMIT.
+ * Каждое изменение переписывает файл целиком, поэтому размер доски задается отдельно.
+ * Запуск: java -cp <classes> benchmark.DurabilityBenchmark [задач на доске] [изменений]
+ */
+public class DurabilityBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int boardSize = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int changes = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Path dir = Files.createTempDirectory("durability-benchmark");
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        System.out.printf("задач на доске: %,d; изменений: %,d%n", boardSize, changes);
+        // Первый проход прогревает JIT и не печатается
+        for (int round = 0; round < 2; round++) {
+            for (Durability durability : Durability.values()) {
+                long[] latencies = run(dir, durability, boardSize, changes, baseTime);
+                if (round > 0) {
+                    System.out.printf("%-12s медиана %8.3f мс, p99 %8.3f мс%n", durability,
+                            latencies[changes / 2] / 1e6, latencies[(int) (changes * 0.99)] / 1e6);
+                }
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private static long[] run(Path dir, Durability durability, int boardSize, int changes, LocalDateTime baseTime)
+            throws IOException {
+        File file = dir.resolve(durability.name() + ".csv").toFile();
+        long[] latencies = new long[changes];
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(file, false, durability)) {
+            List<Task> board = new ArrayList<>(boardSize);
+            for (int i = 0; i < boardSize; i++) {
+                board.add(new Task("Task " + i, "Desc", Status.NEW, Duration.ofMinutes(30), baseTime.plusHours(i)));
+            }
+            manager.addAll(board);
+            Task target = board.getFirst();
+            for (int i = 0; i < changes; i++) {
+                Task updated = new Task(target.getName(), "Desc " + i, Status.IN_PROGRESS, target.getDuration(), target.getStartTime());
+                updated.setId(target.getId());
+                long start = System.nanoTime();
+                manager.updateTask(updated);
+                latencies[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(latencies);
+        Files.deleteIfExists(file.toPath());
+        return latencies;
+    }
+}
@@ -0,0 +1,100 @@
+package benchmark;
+
+import http.HttpTaskServer;
+import model.Status;
+import model.Task;
+import service.Managers;
+import service.TaskManager;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Локальная нагрузка на HttpTaskServer: параллельные клиенты в виртуальных потоках чередуют
+ * запросы списка, задачи по id, истории и приоритетного списка. Печатает запросы в секунду и p99.
+ * Запуск: java -Dsun.net.httpserver.nodelay=true -cp <classes> benchmark.HttpLoadBenchmark [клиентов] [секунд] [задач]
+ */
+public class HttpLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int taskCount = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        TaskManager taskManager = Managers.getConcurrent();
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < taskCount; i++) {
+            taskManager.addNewTask(new Task("Task " + i, "Desc", Status.NEW, Duration.ofMinutes(30), baseTime.plusHours(i)));
+        }
+
+        HttpTaskServer server = new HttpTaskServer(taskManager, 0);
+        server.start();
+        String base = "http://localhost:" + server.getPort();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        List<URI> uris = List.of(URI.create(base + "/tasks"), URI.create(base + "/tasks/1"),
+                URI.create(base + "/history"), URI.create(base + "/prioritized"));
+
+        // Прогрев, чтобы JIT не попал в замер
+        runClients(client, uris, clients, System.nanoTime() + Duration.ofSeconds(2).toNanos());
+        long start = System.nanoTime();
+        List<long[]> results = runClients(client, uris, clients, start + Duration.ofSeconds(seconds).toNanos());
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        server.stop();
+
+        long[] latencies = results.stream().flatMapToLong(Arrays::stream).toArray();
+        Arrays.sort(latencies);
+        System.out.printf("клиентов: %d, задач: %d, запросов: %,d%n", clients, taskCount, latencies.length);
+        System.out.printf("пропускная способность: %,.0f запросов/с%n", latencies.length / elapsedSeconds);
+        System.out.printf("p50: %.2f мс, p99: %.2f мс, max: %.2f мс%n",
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6, latencies[latencies.length - 1] / 1e6);
+        System.out.printf("ошибок: %d%n", ERRORS.get());
+    }
+
+    private static final AtomicInteger ERRORS = new AtomicInteger();
+
+    private static List<long[]> runClients(HttpClient client, List<URI> uris, int clients, long deadline) throws Exception {
+        List<Future<long[]>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int offset = c;
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    for (int i = offset; System.nanoTime() < deadline; i++) {
+                        HttpRequest request = HttpRequest.newBuilder(uris.get(i % uris.size())).GET().build();
+                        long started = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            ERRORS.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - started;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        List<long[]> results = new ArrayList<>();
+        for (Future<long[]> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,74 @@
+package benchmark;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import service.FileBackedTaskManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/*
+ * Холодный запуск FileBackedTaskManager: последовательная загрузка против loadInParallel на пулах
+ * fork-join разного размера. Ускорение ограничено числом ядер машины.
+ * Запуск: java -Xmx4g -cp <classes> benchmark.ParallelLoadBenchmark [количество задач]
+ */
+public class ParallelLoadBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Path dir = Files.createTempDirectory("parallel-load-benchmark");
+        File csvFile = dir.resolve("tasks.csv").toFile();
+
+        FileBackedTaskManager source = new FileBackedTaskManager(csvFile, false);
+        List<Task> tasks = new ArrayList<>(count);
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < count / 2; i++) {
+            tasks.add(new Task("Task " + i, "Desc", Status.NEW, Duration.ofMinutes(30), baseTime.plusHours(i)));
+        }
+        source.addAll(tasks);
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        source.addNewEpic(epic);
+        List<Task> subtasks = new ArrayList<>(count - count / 2);
+        for (int i = count / 2; i < count; i++) {
+            subtasks.add(new Subtask("Sub " + i, "Desc", Status.DONE, Duration.ofMinutes(30), baseTime.plusHours(i), epic.getId()));
+        }
+        source.addAll(subtasks);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("задач: %,d; ядер: %d%n", count, cores);
+        for (int round = 0; round < 3; round++) {
+            StringBuilder line = new StringBuilder(String.format("проход %d: последовательно %,d мс", round + 1,
+                    measure(() -> new FileBackedTaskManager(csvFile, true))));
+            for (int threads = 1; threads <= Math.max(cores, 8); threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                line.append(String.format(", %d потоков %,d мс", threads,
+                        measure(() -> FileBackedTaskManager.loadInParallel(csvFile, pool))));
+                pool.shutdown();
+            }
+            System.out.println(line);
+        }
+
+        Files.deleteIfExists(csvFile.toPath());
+        Files.deleteIfExists(dir);
+    }
+
+    private static long measure(Supplier<FileBackedTaskManager> load) {
+        long start = System.nanoTime();
+        FileBackedTaskManager manager = load.get();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        if (manager.getPrioritizedTasks().isEmpty()) {
+            System.out.println("пустой менеджер");
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import model.Status;
+import model.Task;
+import service.FileBackedTaskManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/*
+ * Время запуска FileBackedTaskManager: разбор CSV против двоичного снимка через FileChannel.map.
+ * Запуск: java -Xmx4g -cp <classes> benchmark.SnapshotLoadBenchmark [количество задач]
+ */
+public class SnapshotLoadBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Path dir = Files.createTempDirectory("snapshot-benchmark");
+        File csvFile = dir.resolve("tasks.csv").toFile();
+        File snapshotFile = dir.resolve("tasks.bin").toFile();
+
+        FileBackedTaskManager source = new FileBackedTaskManager(csvFile, false);
+        List<Task> tasks = new ArrayList<>(count);
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < count; i++) {
+            tasks.add(new Task("Task " + i, "Desc", Status.NEW, Duration.ofMinutes(30), baseTime.plusHours(i)));
+        }
+        source.addAll(tasks);
+        source.saveSnapshot(snapshotFile);
+
+        System.out.printf("задач: %,d; CSV: %,d байт; снимок: %,d байт%n", count, csvFile.length(), snapshotFile.length());
+        for (int round = 0; round < 3; round++) {
+            long csvMillis = measure(() -> new FileBackedTaskManager(csvFile, true));
+            long snapshotMillis = measure(() -> FileBackedTaskManager.loadFromSnapshot(snapshotFile, csvFile));
+            System.out.printf("проход %d: CSV %,d мс, снимок %,d мс%n", round + 1, csvMillis, snapshotMillis);
+        }
+
+        Files.deleteIfExists(snapshotFile.toPath());
+        Files.deleteIfExists(csvFile.toPath());
+        Files.deleteIfExists(dir);
+    }
+
+    private static long measure(Supplier<FileBackedTaskManager> load) {
+        long start = System.nanoTime();
+        FileBackedTaskManager manager = load.get();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        if (manager.getTasksView().size() == 0) {
+            System.out.println("пустой менеджер");
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,63 @@
+package benchmark;
+
+import util.IntObjectHashMap;
+
+import java.util.HashMap;
+import java.util.function.IntFunction;
+
+/*
+ * Сравнение памяти хранилищ InMemoryTaskManager: HashMap<Integer, V> против IntObjectHashMap<V>.
+ * Все записи ссылаются на один объект-значение, поэтому измеряются только накладные расходы структуры.
+ * Запуск: java -Xmx2g -cp <classes> benchmark.StoreMemoryBenchmark [количество записей]
+ */
+public class StoreMemoryBenchmark {
+
+    private static final Object VALUE = new Object();
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        // Id разных хранилищ чередуются: каждое получает каждый третий id общего счетчика
+        long hashMapBytes = measure(count -> {
+            HashMap<Integer, Object> map = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                map.put(1 + i * 3, VALUE);
+            }
+            return map;
+        }, entries);
+        long intMapBytes = measure(count -> {
+            IntObjectHashMap<Object> map = new IntObjectHashMap<>();
+            for (int i = 0; i < count; i++) {
+                map.put(1 + i * 3, VALUE);
+            }
+            return map;
+        }, entries);
+
+        System.out.printf("записей: %,d%n", entries);
+        System.out.printf("HashMap<Integer, V>:  %,d байт (%.1f байт на запись)%n", hashMapBytes, (double) hashMapBytes / entries);
+        System.out.printf("IntObjectHashMap<V>: %,d байт (%.1f байт на запись)%n", intMapBytes, (double) intMapBytes / entries);
+    }
+
+    private static long measure(IntFunction<Object> factory, int entries) {
+        long before = usedMemory();
+        Object store = factory.apply(entries);
+        long after = usedMemory();
+        if (store.hashCode() == 42) {
+            System.out.println();
+        }
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
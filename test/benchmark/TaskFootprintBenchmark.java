@@ -0,0 +1,80 @@
+package benchmark;
+
+import model.Status;
+import model.Task;
+import util.StringPool;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.IntFunction;
+
+/*
+ * Память на одну задачу: прежняя раскладка (DateTimeFormatter в каждом объекте, Duration и LocalDateTime)
+ * против текущей (минуты и секунды в примитивах, общие строки имени и описания из пула загрузчика;
+ * сам пул тоже попадает в замер).
+ * Запуск: java -Xmx4g -cp <classes> benchmark.TaskFootprintBenchmark [количество задач]
+ */
+public class TaskFootprintBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        // Имена повторяются по 10 раз, описание общее - как у задач, созданных по шаблону
+        long legacyBytes = measure(i -> new LegacyTask(new String("Task " + i / 10), new String("Desc"), Status.NEW,
+                Duration.ofMinutes(30), baseTime.plusMinutes(i * 30L)), count);
+        StringPool strings = new StringPool(count);
+        long compactBytes = measure(i -> new Task(strings.dedupe(new String("Task " + i / 10)),
+                strings.dedupe(new String("Desc")), Status.NEW, Duration.ofMinutes(30), baseTime.plusMinutes(i * 30L)), count);
+
+        System.out.printf("задач: %,d%n", count);
+        System.out.printf("прежняя раскладка: %,d байт (%.1f байт на задачу)%n", legacyBytes, (double) legacyBytes / count);
+        System.out.printf("текущая раскладка: %,d байт (%.1f байт на задачу)%n", compactBytes, (double) compactBytes / count);
+    }
+
+    private static long measure(IntFunction<Object> factory, int count) {
+        Object[] objects = new Object[count];
+        long before = usedMemory();
+        for (int i = 0; i < count; i++) {
+            objects[i] = factory.apply(i);
+        }
+        long after = usedMemory();
+        if (objects[count - 1].hashCode() == 42) {
+            System.out.println();
+        }
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Поля прежней модели Task, оставлены только для сравнения
+    private static class LegacyTask {
+        private int id;
+        private final String name;
+        private final String description;
+        private Status status;
+        private final Duration duration;
+        private final LocalDateTime startTime;
+        private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+
+        LegacyTask(String name, String description, Status status, Duration duration, LocalDateTime startTime) {
+            this.name = name;
+            this.description = description;
+            this.status = status;
+            this.duration = duration;
+            this.startTime = startTime;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.Managers;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTaskServerTest {
+    private TaskManager taskManager;
+    private HttpTaskServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        taskManager = Managers.getConcurrent();
+        server = new HttpTaskServer(taskManager, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void shouldCreateAndReturnTask() throws Exception {
+        HttpResponse<String> created = post("/tasks", "{\"name\":\"Task \\\"1\\\"\",\"description\":\"Desc\","
+                + "\"status\":\"NEW\",\"duration\":60,\"startTime\":\"2024-01-01T10:00\"}");
+        assertEquals(201, created.statusCode());
+        assertEquals(1, taskManager.getTasks().size());
+        assertEquals("Task \"1\"", taskManager.getTasks().getFirst().getName());
+
+        HttpResponse<String> list = get("/tasks");
+        assertEquals(200, list.statusCode());
+        assertTrue(list.body().startsWith("[{\"id\":1,\"type\":\"TASK\",\"name\":\"Task \\\"1\\\"\""), list.body());
+        assertTrue(list.body().contains("\"endTime\":\"2024-01-01T11:00\""));
+
+        assertEquals(200, get("/tasks/1").statusCode());
+        assertEquals(404, get("/tasks/2").statusCode());
+        assertEquals(1, taskManager.getHistory().size(), "Запрос по id должен попадать в историю");
+    }
+
+    @Test
+    void shouldRejectOverlappingTaskWith406() throws Exception {
+        String task = "{\"name\":\"Task\",\"duration\":60,\"startTime\":\"2024-01-01T10:00\"}";
+        assertEquals(201, post("/tasks", task).statusCode());
+
+        HttpResponse<String> overlap = post("/tasks", task);
+        assertEquals(406, overlap.statusCode());
+        assertTrue(overlap.body().startsWith("{\"error\":"));
+    }
+
+    @Test
+    void shouldServeEpicSubtasksHistoryAndPrioritized() throws Exception {
+        post("/epics", "{\"name\":\"Epic\",\"description\":\"Desc\"}");
+        post("/subtasks", "{\"name\":\"Sub\",\"status\":\"DONE\",\"duration\":30,"
+                + "\"startTime\":\"2024-01-01T10:00\",\"epicId\":1}");
+
+        String epic = get("/epics/1").body();
+        assertTrue(epic.contains("\"status\":\"DONE\""), epic);
+        assertTrue(epic.contains("\"subtaskIds\":[2]"), epic);
+        assertTrue(get("/epics/1/subtasks").body().contains("\"epicId\":1"));
+        assertTrue(get("/history").body().startsWith("[{\"id\":1"));
+        assertTrue(get("/prioritized").body().startsWith("[{\"id\":2"));
+    }
+
+    @Test
+    void epicSubtasksRequestShouldNotTouchHistory() throws Exception {
+        post("/epics", "{\"name\":\"Epic\",\"description\":\"Desc\"}");
+
+        assertEquals(200, get("/epics/1/subtasks").statusCode());
+        assertTrue(taskManager.getHistory().isEmpty());
+    }
+
+    @Test
+    void shouldUpdateAndDeleteTask() throws Exception {
+        post("/tasks", "{\"name\":\"Task\"}");
+
+        assertEquals(200, post("/tasks", "{\"id\":1,\"name\":\"Renamed\",\"status\":\"DONE\"}").statusCode());
+        assertEquals("Renamed", taskManager.getTasks().getFirst().getName());
+        assertEquals(404, post("/tasks", "{\"id\":5,\"name\":\"Missing\"}").statusCode());
+
+        HttpResponse<String> deleted = client.send(HttpRequest.newBuilder(uri("/tasks/1")).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(204, deleted.statusCode());
+        assertTrue(taskManager.getTasks().isEmpty());
+    }
+
+    @Test
+    void shouldAnswer400ForMalformedRequests() throws Exception {
+        assertEquals(400, post("/tasks", "{\"name\":").statusCode());
+        assertEquals(400, get("/tasks/abc").statusCode());
+        assertEquals(405, post("/history", "{}").statusCode());
+    }
+
+    @Test
+    void shouldAnswer404ForSubtaskOfUnknownEpic() throws Exception {
+        HttpResponse<String> response = post("/subtasks", "{\"name\":\"Sub\",\"epicId\":42}");
+
+        assertEquals(404, response.statusCode());
+        assertTrue(taskManager.getSubtasks().isEmpty());
+    }
+
+    @Test
+    void updateShouldNotTouchHistory() throws Exception {
+        post("/tasks", "{\"name\":\"Task\"}");
+
+        assertEquals(200, post("/tasks", "{\"id\":1,\"name\":\"Renamed\"}").statusCode());
+        assertEquals(404, post("/epics", "{\"id\":1,\"name\":\"Not an epic\"}").statusCode());
+        assertTrue(taskManager.getHistory().isEmpty());
+    }
+
+    @Test
+    void shouldAnswer400ForBrokenEscapesAnd500ForUnexpectedErrors() throws Exception {
+        assertEquals(400, post("/tasks", "{\"name\":\"abc\\").statusCode());
+        assertEquals(400, post("/tasks", "{\"name\":\"\\u12").statusCode());
+        assertEquals(400, post("/tasks", "{\"name\":\"\\uzzzz\"}").statusCode());
+        // Переполнение при пересчете длительности - не ошибка формата, но ответ все равно должен прийти
+        HttpResponse<String> overflow = post("/tasks", "{\"name\":\"Task\",\"duration\":9223372036854775807}");
+        assertEquals(500, overflow.statusCode());
+        assertTrue(overflow.body().startsWith("{\"error\":"));
+        assertFalse(overflow.body().contains("Exception"), "Текст исключения не должен уходить клиенту");
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}
@@ -52,4 +52,47 @@ public class EpicTest {
         epic.addSubtaskId(5);
         assertTrue(epic.getSubtaskIds().contains(5));
     }
+
+    @Test
+    void shouldRollUpStatusAndTimesFromSubtasks() {
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Subtask first = new Subtask("Sub1", "Desc", Status.DONE, Duration.ofHours(1), baseTime, 1);
+        Subtask second = new Subtask("Sub2", "Desc", Status.NEW, Duration.ofHours(2), baseTime.plusHours(3), 1);
+        first.setId(2);
+        second.setId(3);
+
+        epic.addSubtask(first);
+        epic.addSubtask(second);
+
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        assertEquals(baseTime, epic.getStartTime());
+        assertEquals(baseTime.plusHours(5), epic.getEndTime());
+        assertEquals(Duration.ofHours(5), epic.getDuration());
+
+        epic.removeSubtask(second);
+
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(baseTime.plusHours(1), epic.getEndTime());
+        assertEquals(List.of(2), epic.getSubtaskIds());
+    }
+
+    @Test
+    void shouldRecountStatusWhenSubtaskChangedInPlace() {
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        Subtask subtask = new Subtask("Sub", "Desc", Status.NEW, null, null, 1);
+        subtask.setId(2);
+        epic.addSubtask(subtask);
+
+        subtask.setStatus(Status.DONE);
+        epic.replaceSubtask(subtask, subtask);
+
+        assertEquals(Status.DONE, epic.getStatus());
+
+        epic.clearSubtasks();
+
+        assertEquals(Status.NEW, epic.getStatus());
+        assertNull(epic.getStartTime());
+        assertNull(epic.getDuration());
+    }
 }
@@ -58,4 +58,26 @@ public class TaskTest {
         t2.setId(2);
         assertNotEquals(t1, t2);
     }
+
+    @Test
+    void timeShouldBeStoredWithMinutePrecision() {
+        Task task = new Task("A", "X", Status.NEW, Duration.ofMinutes(90).plusSeconds(15),
+                LocalDateTime.of(2024, 1, 1, 10, 0, 42, 500));
+
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), task.getStartTime());
+        assertEquals(Duration.ofMinutes(90).plusSeconds(15), task.getDuration());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 11, 30, 15), task.getEndTime());
+        assertEquals("1:30:15", task.getDurationConverted());
+        assertEquals("01.01.2024 10:00", task.getStartTimeConverted());
+    }
+
+    @Test
+    void taskWithoutTimeShouldReturnNulls() {
+        Task task = new Task("A", "X", Status.NEW, null, null);
+
+        assertNull(task.getStartTime());
+        assertNull(task.getDuration());
+        assertNull(task.getEndTime());
+        assertEquals("null", task.getDurationConverted());
+    }
 }
@@ -0,0 +1,157 @@
+package service;
+
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandQueueTaskManagerTest extends TaskManagerTest<CommandQueueTaskManager> {
+
+    @Override
+    protected CommandQueueTaskManager createTaskManager() {
+        return Managers.getCommandQueue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskManager.close();
+    }
+
+    @Test
+    void shouldApplyCommandsFromManyThreads() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Thread> writers = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int current = thread;
+            writers.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    taskManager.addNewTask(new Task("Task", "Desc", Status.NEW, Duration.ofMinutes(1),
+                            baseTime.plusMinutes((long) current * perThread + i)));
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(threads * perThread, taskManager.getTasks().size());
+        assertEquals(threads * perThread, taskManager.getTasks().stream().mapToInt(Task::getId).distinct().count());
+    }
+
+    @Test
+    void submitShouldCompleteFutureWithResultOrError() throws Exception {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 10, 0);
+        CompletableFuture<Integer> added = taskManager.submit(manager -> {
+            Task task = new Task("Task", "Desc", Status.NEW, Duration.ofHours(1), time);
+            manager.addNewTask(task);
+            return task.getId();
+        });
+        CompletableFuture<Void> overlap = taskManager.submit(manager -> {
+            manager.addNewTask(new Task("Overlap", "Desc", Status.NEW, Duration.ofHours(1), time));
+            return null;
+        });
+
+        assertEquals(Integer.valueOf(1), added.get(5, TimeUnit.SECONDS));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> overlap.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IntersectWithOtherTaskException);
+        assertThrows(IntersectWithOtherTaskException.class, () -> taskManager.addNewTask(
+                new Task("Overlap", "Desc", Status.NEW, Duration.ofHours(1), time)),
+                "Синхронный вызов должен пробрасывать исходное исключение");
+    }
+
+    @Test
+    void submitShouldWaitForFreeSpaceWhenQueueIsFull() throws Exception {
+        CommandQueueTaskManager manager = new CommandQueueTaskManager(new InMemoryTaskManager(), 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            manager.submit(m -> {
+                awaitQuietly(release);
+                return null;
+            });
+            manager.submit(m -> null);
+
+            Thread producer = Thread.ofVirtual().start(() -> manager.submit(m -> null));
+            producer.join(200);
+            assertTrue(producer.isAlive(), "При заполненной очереди отправка должна ждать");
+
+            release.countDown();
+            producer.join(5_000);
+            assertFalse(producer.isAlive());
+        } finally {
+            // Иначе при упавшей проверке писатель остается заблокирован и close ждет вечно
+            release.countDown();
+            manager.close();
+        }
+    }
+
+    @Test
+    void closedManagerShouldRejectCommands() {
+        taskManager.close();
+
+        CompletableFuture<Object> rejected = taskManager.submit(manager -> null);
+        assertTrue(rejected.isCompletedExceptionally());
+    }
+
+    @Test
+    void commandsSubmittedDuringCloseShouldAllComplete() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            CommandQueueTaskManager manager = new CommandQueueTaskManager(new InMemoryTaskManager(), 4);
+            List<CompletableFuture<Object>> futures = new ArrayList<>();
+            List<Thread> producers = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                producers.add(Thread.ofVirtual().start(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        CompletableFuture<Object> future = manager.submit(m -> null);
+                        synchronized (futures) {
+                            futures.add(future);
+                        }
+                    }
+                }));
+            }
+            manager.close();
+            for (Thread producer : producers) {
+                producer.join(5_000);
+                assertFalse(producer.isAlive(), "Отправка после закрытия не должна зависать");
+            }
+
+            for (CompletableFuture<Object> future : futures) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+            }
+        }
+    }
+
+    @Test
+    void errorInCommandShouldNotStopWriter() throws Exception {
+        CompletableFuture<Object> failed = taskManager.submit(manager -> {
+            throw new AssertionError("сбой команды");
+        });
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof AssertionError);
+        assertEquals(Integer.valueOf(7), taskManager.submit(manager -> 7).get(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
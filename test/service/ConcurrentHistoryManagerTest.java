@@ -0,0 +1,78 @@
+package service;
+
+import model.Status;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHistoryManagerTest extends InMemoryHistoryManagerTest {
+
+    @Override
+    protected HistoryManager createHistoryManager() {
+        return Managers.getConcurrentHistory();
+    }
+
+    @Test
+    void shouldKeepOrderOfBufferedAccesses() {
+        HistoryManager historyManager = createHistoryManager();
+        List<Task> tasks = createTasks(500);
+        tasks.forEach(historyManager::addInHistory);
+        historyManager.addInHistory(tasks.getFirst());
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(500, history.size());
+        assertEquals(tasks.get(1), history.getFirst(), "Повторный просмотр переносит задачу в конец");
+        assertEquals(tasks.getFirst(), history.getLast());
+    }
+
+    @Test
+    void shouldRecordEveryTaskViewedFromSeveralThreads() throws Exception {
+        HistoryManager historyManager = createHistoryManager();
+        int threads = 8;
+        List<Task> tasks = createTasks(100);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1000; i++) {
+                        historyManager.addInHistory(tasks.get(i % tasks.size()));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(tasks.size(), history.size(), "История не должна содержать дубликатов");
+        assertEquals(tasks.size(), history.stream().distinct().count());
+    }
+
+    private static List<Task> createTasks(int count) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Task task = new Task("Task" + i, "Desc", Status.NEW, null, null);
+            task.setId(i);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,228 @@
+package service;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 8;
+
+    @Override
+    protected ConcurrentTaskManager createTaskManager() {
+        return (ConcurrentTaskManager) Managers.getConcurrent();
+    }
+
+    @Test
+    void onlyOneOfConcurrentAddsShouldReserveSameSlot() throws Exception {
+        LocalDateTime slot = LocalDateTime.of(2024, 1, 1, 10, 0);
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> {
+            try {
+                taskManager.addNewTask(new Task("Task" + thread, "Desc", Status.NEW,
+                        Duration.ofHours(1), slot.plusMinutes(thread)));
+            } catch (IntersectWithOtherTaskException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, taskManager.getTasks().size(), "Слот должна занять ровно одна задача");
+        assertEquals(THREADS - 1, rejected.get(), "Остальные добавления должны быть отклонены");
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldAssignUniqueIdsUnderConcurrentAdds() throws Exception {
+        int perThread = 500;
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < perThread; i++) {
+                taskManager.addNewTask(new Task("Task", "Desc", Status.NEW, Duration.ofMinutes(1),
+                        baseTime.plusMinutes((long) thread * perThread + i)));
+            }
+        });
+
+        List<Task> tasks = taskManager.getTasks();
+        assertEquals(THREADS * perThread, tasks.size());
+        assertEquals(THREADS * perThread, tasks.stream().mapToInt(Task::getId).distinct().count(),
+                "id задач не должны повторяться");
+        assertEquals(THREADS * perThread, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void epicShouldStayConsistentUnderConcurrentSubtaskUpdates() throws Exception {
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Subtask subtask = new Subtask("Sub" + i, "Desc", Status.NEW,
+                    Duration.ofHours(1), baseTime.plusHours(i * 2L), epic.getId());
+            taskManager.addNewSubtask(subtask);
+            subtasks.add(subtask);
+        }
+
+        runConcurrently(THREADS, thread -> {
+            Subtask current = subtasks.get(thread);
+            for (int i = 0; i < 200; i++) {
+                Status status = i % 2 == 0 ? Status.IN_PROGRESS : Status.DONE;
+                Subtask next = new Subtask(current.getName(), "Desc", status,
+                        Duration.ofMinutes(30 + i % 30), current.getStartTime(), epic.getId());
+                next.setId(current.getId());
+                taskManager.updateSubtask(next);
+            }
+        });
+
+        Epic stored = taskManager.getEpicById(epic.getId());
+        assertEquals(Status.DONE, stored.getStatus(), "Последнее обновление каждой подзадачи - DONE");
+        assertEquals(THREADS, stored.getSubtaskCount());
+        Subtask last = taskManager.getSubtaskById(subtasks.getLast().getId());
+        assertEquals(baseTime, stored.getStartTime());
+        assertEquals(last.getEndTime(), stored.getEndTime());
+    }
+
+    @Test
+    void subtaskAddsShouldNotBeLostWhileEpicsAreDeleted() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Epic epic = new Epic("Epic" + i, "Desc", null, null);
+            taskManager.addNewEpic(epic);
+            epics.add(epic);
+        }
+
+        runConcurrently(THREADS, thread -> {
+            Epic epic = epics.get(thread);
+            for (int i = 0; i < 100; i++) {
+                taskManager.addNewSubtask(new Subtask("Sub", "Desc", Status.NEW, null, null, epic.getId()));
+            }
+            if (thread % 2 == 0) {
+                taskManager.deleteEpicById(epic.getId());
+            }
+        });
+
+        assertEquals(THREADS / 2, taskManager.getEpics().size());
+        assertEquals(THREADS / 2 * 100, taskManager.getSubtasks().size(),
+                "Подзадачи удаленных эпиков не должны оставаться в менеджере");
+        for (Epic epic : taskManager.getEpics()) {
+            assertEquals(100, taskManager.getEpicSubtasks(epic).size());
+        }
+    }
+
+    @Test
+    void snapshotsTakenDuringWritesShouldBeConsistent() throws Exception {
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        taskManager.snapshot();
+        AtomicInteger torn = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < 200; i++) {
+                if (thread == 0) {
+                    TaskSnapshot snapshot = taskManager.snapshot();
+                    Epic frozen = snapshot.getEpicById(epic.getId());
+                    if (frozen.getSubtaskCount() != snapshot.getSubtasks().size()) {
+                        torn.incrementAndGet();
+                    }
+                } else {
+                    Subtask subtask = new Subtask("Sub", "Desc", Status.NEW, null, null, epic.getId());
+                    taskManager.addNewSubtask(subtask);
+                    if (i % 2 == 0) {
+                        taskManager.deleteSubtaskById(subtask.getId());
+                    }
+                }
+            }
+        });
+
+        assertEquals(0, torn.get(), "Снимок не должен содержать подзадачи без учета в эпике");
+        assertEquals(taskManager.getSubtasks().size(), taskManager.snapshot().getSubtasks().size());
+    }
+
+    @Test
+    void viewsRacingWithDeletesShouldNotLeaveDeletedTasksInHistory() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            List<Task> added = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Task task = new Task("Task", "Desc", Status.NEW, null, null);
+                taskManager.addNewTask(task);
+                added.add(task);
+            }
+
+            runConcurrently(THREADS, thread -> {
+                int id = added.get(thread).getId();
+                if (thread % 2 == 0) {
+                    taskManager.deleteTaskById(id);
+                    taskManager.deleteTaskById(added.get(thread + 1).getId());
+                } else {
+                    for (int i = 0; i < 20; i++) {
+                        taskManager.getTaskById(id);
+                    }
+                }
+            });
+
+            for (Task task : taskManager.getHistory()) {
+                assertTrue(taskManager.getTasksView().contains(task), "В истории осталась удаленная задача id=" + task.getId());
+            }
+        }
+    }
+
+    @Test
+    void snapshotShouldNotResurrectTasksDeletedRightAfterAdd() throws Exception {
+        taskManager.snapshot();
+        BlockingQueue<Integer> added = new LinkedBlockingQueue<>();
+        int count = 2_000;
+
+        runConcurrently(2, thread -> {
+            for (int i = 0; i < count; i++) {
+                if (thread == 0) {
+                    Task task = new Task("Task", "Desc", Status.NEW, null, null);
+                    taskManager.addNewTask(task);
+                    added.add(task.getId());
+                    Epic epic = new Epic("Epic", "Desc", null, null);
+                    taskManager.addNewEpic(epic);
+                    added.add(epic.getId());
+                } else {
+                    taskManager.deleteTaskById(added.take());
+                    taskManager.deleteEpicById(added.take());
+                }
+            }
+        });
+
+        assertEquals(0, taskManager.snapshot().getTasks().size(), "Удаленные задачи не должны возвращаться в снимок");
+        assertEquals(0, taskManager.snapshot().getEpics().size());
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(int threads, ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int current = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    body.run(current);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
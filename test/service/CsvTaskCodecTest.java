@@ -0,0 +1,105 @@
+package service;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+import util.StringPool;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTaskCodecTest {
+
+    @Test
+    void shouldWriteSameFormatAsBefore() {
+        Task task = new Task("Task", "Desc", Status.NEW, Duration.ofMinutes(90), LocalDateTime.of(2024, 3, 5, 9, 7));
+        task.setId(7);
+        Subtask subtask = new Subtask("Sub", "Desc", Status.DONE, null, null, 3);
+        subtask.setId(8);
+
+        assertEquals("7,TASK,Task,NEW,Desc,1:30:00,05.03.2024 09:07,05.03.2024 10:37", CsvTaskCodec.encode(task));
+        assertEquals("8,SUBTASK,Sub,DONE,Desc,null,null,null,3", CsvTaskCodec.encode(subtask));
+    }
+
+    @Test
+    void shouldRoundTripQuotedFields() {
+        Task task = new Task("Name, with \"quotes\"", "Line1\nLine2", Status.IN_PROGRESS,
+                Duration.ofHours(26).plusMinutes(5), LocalDateTime.of(2024, 12, 31, 23, 59));
+        task.setId(42);
+
+        Task decoded = CsvTaskCodec.decode(CsvTaskCodec.encode(task));
+
+        assertEquals(42, decoded.getId());
+        assertEquals(task.getName(), decoded.getName());
+        assertEquals(task.getDescription(), decoded.getDescription());
+        assertEquals(Status.IN_PROGRESS, decoded.getStatus());
+        assertEquals(task.getDuration(), decoded.getDuration());
+        assertEquals(task.getStartTime(), decoded.getStartTime());
+    }
+
+    @Test
+    void recordsDecodedWithOnePoolShouldShareStrings() {
+        StringPool strings = new StringPool();
+
+        Task first = CsvTaskCodec.decode("1,TASK,Name,NEW,Desc,null,null,null", strings);
+        Task second = CsvTaskCodec.decode("2,TASK,Name,DONE,Desc,null,null,null", strings);
+
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getDescription(), second.getDescription());
+    }
+
+    @Test
+    void shouldDistinguishNullFromNullString() {
+        Task task = new Task("null", null, Status.NEW, null, null);
+        task.setId(1);
+
+        String line = CsvTaskCodec.encode(task);
+        Task decoded = CsvTaskCodec.decode(line);
+
+        assertEquals("1,TASK,\"null\",NEW,null,null,null,null", line);
+        assertEquals("null", decoded.getName());
+        assertNull(decoded.getDescription());
+        assertNull(decoded.getStartTime());
+    }
+
+    @Test
+    void shouldDecodeSubtaskAndEpic() {
+        Subtask subtask = (Subtask) CsvTaskCodec.decode("5,SUBTASK,Sub,DONE,Desc,0:45:00,01.01.2024 10:00,01.01.2024 10:45,2");
+        Epic epic = (Epic) CsvTaskCodec.decode("2,EPIC,Epic,IN_PROGRESS,Desc,null,null,null");
+
+        assertEquals(2, subtask.getEpicId());
+        assertEquals(Duration.ofMinutes(45), subtask.getDuration());
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+    }
+
+    @Test
+    void shouldEncodeEpicWithoutComputedEndTime() {
+        Epic epic = new Epic("Epic", "Desc", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0));
+        epic.setId(3);
+
+        assertEquals("3,EPIC,Epic,NEW,Desc,1:00:00,01.01.2024 10:00,null", CsvTaskCodec.encode(epic));
+    }
+
+    @Test
+    void shouldRejectMalformedRows() {
+        assertThrows(IllegalArgumentException.class, () -> CsvTaskCodec.decode("x,TASK,Task,NEW,Desc,null,null,null"));
+        assertThrows(IllegalArgumentException.class, () -> CsvTaskCodec.decode("1,BUG,Task,NEW,Desc,null,null,null"));
+        assertThrows(IllegalArgumentException.class, () -> CsvTaskCodec.decode("1,TASK,Task,NEW,Desc,90,null,null"));
+        assertThrows(IllegalArgumentException.class, () -> CsvTaskCodec.decode("1,TASK,Task,NEW,Desc,null,32.01.2024 10:00,null"));
+        assertThrows(IllegalArgumentException.class, () -> CsvTaskCodec.decode("1,SUBTASK,Sub,NEW,Desc,null,null,null"));
+        assertThrows(IllegalArgumentException.class, () -> CsvTaskCodec.decode("1,TASK,\"Task,NEW"));
+    }
+
+    @Test
+    void readRecordShouldJoinQuotedLineBreaks() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader("1,TASK,\"a\nb\",NEW\r\n2,TASK\n"));
+
+        assertEquals("1,TASK,\"a\nb\",NEW", CsvTaskCodec.readRecord(reader));
+        assertEquals("2,TASK", CsvTaskCodec.readRecord(reader));
+        assertNull(CsvTaskCodec.readRecord(reader));
+    }
+}
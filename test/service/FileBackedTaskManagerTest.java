@@ -7,11 +7,18 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -149,6 +156,23 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertEquals(lastId + 1, newTask.getId());
     }
 
+    @Test
+    void testDeletedIdsNotReusedAfterReload() {
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task first = new Task("Task 1", "Desc", Status.NEW, Duration.ofHours(1), baseTime);
+        Task last = new Task("Task 2", "Desc", Status.NEW, Duration.ofHours(1), baseTime.plusHours(1));
+        taskManager.addNewTask(first);
+        taskManager.addNewTask(last);
+        taskManager.deleteTaskById(last.getId());
+
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(testFile, true);
+        Task newTask = new Task("New Task", "Desc", Status.NEW, Duration.ofHours(1), baseTime.plusHours(1));
+        loadedManager.addNewTask(newTask);
+
+        assertEquals(2, loadedManager.getTasks().size());
+        assertEquals(last.getId() + 1, newTask.getId(), "id удаленной задачи не должен выдаваться повторно");
+    }
+
     @Test
     void testLoadFromFileStaticMethod() {
         Task task = new Task("Test", "Desc", Status.NEW, Duration.ofHours(2).plusMinutes(30), LocalDateTime.now());
@@ -197,4 +221,342 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertFalse(manager2.getTasks().isEmpty());
         assertEquals(task1.getId(), manager2.getTasks().getFirst().getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBatchAddSavedToFile() {
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        taskManager.addAll(List.of(
+                new Task("Task 1", "Desc", Status.NEW, Duration.ofHours(1), baseTime),
+                new Task("Task 2", "Desc", Status.DONE, Duration.ofHours(1), baseTime.plusHours(1))));
+
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(testFile, true);
+
+        assertEquals(2, loadedManager.getTasks().size());
+        assertEquals(2, loadedManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void testEmptyBatchDoesNotRewriteFile() {
+        taskManager.addAll(List.of());
+
+        assertEquals(0, testFile.length(), "Пустой пакет не должен сохранять файл");
+    }
+
+    @Test
+    void testBatchSavedOnceAtEnd() throws IOException {
+        taskManager.runBatch(() -> {
+            taskManager.addNewTask(new Task("Task", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0)));
+            try {
+                assertFalse(Files.readString(testFile.toPath()).contains("Task"), "Внутри пачки файл не должен перезаписываться");
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        assertTrue(Files.readString(testFile.toPath()).contains("Task"), "После пачки данные должны быть сохранены");
+    }
+
+    @Test
+    void testCommandQueueOverFileBackedManager() {
+        try (CommandQueueTaskManager queueManager = new CommandQueueTaskManager(taskManager)) {
+            queueManager.addNewTask(new Task("Task", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0)));
+        }
+
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(testFile, true);
+        assertEquals(1, loadedManager.getTasks().size());
+    }
+
+    @Test
+    void testTasksWithoutTimeSurviveReload() {
+        taskManager.addNewTask(new Task("Task", "Desc", Status.NEW, null, null));
+        taskManager.addNewEpic(new Epic("Epic", "Desc", null, null));
+
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(testFile, true);
+        assertEquals(1, loadedManager.getTasks().size());
+        assertEquals(1, loadedManager.getEpics().size());
+        assertNull(loadedManager.getTasks().getFirst().getStartTime());
+    }
+
+    @Test
+    void testWriteBehindDefersUntilFlush() throws IOException {
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(testFile, false, Duration.ofHours(1), 1000)) {
+            manager.addNewTask(new Task("Task", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0)));
+            assertFalse(Files.readString(testFile.toPath()).contains("Task"), "До сброса файл не должен перезаписываться");
+
+            manager.flush();
+            assertTrue(Files.readString(testFile.toPath()).contains("Task"), "После flush() данные должны быть в файле");
+        }
+    }
+
+    @Test
+    void testWriteBehindFlushesOnThreshold() throws Exception {
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(testFile, false, Duration.ofHours(1), 3)) {
+            for (int i = 0; i < 3; i++) {
+                manager.addNewTask(new Task("Task" + i, "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10 + i, 0)));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!Files.readString(testFile.toPath()).contains("Task2") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(Files.readString(testFile.toPath()).contains("Task2"), "Порог изменений должен запускать запись");
+        }
+    }
+
+    @Test
+    void testWriteBehindCloseSavesPendingChanges() {
+        Task task = new Task("Task", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0));
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(testFile, false, Duration.ofHours(1), 1000)) {
+            manager.addNewTask(task);
+            manager.deleteTaskById(task.getId());
+            manager.addNewTask(new Task("Other", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 12, 0)));
+        }
+
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(testFile, true);
+        assertEquals(1, loadedManager.getTasks().size());
+        assertEquals("Other", loadedManager.getTasks().getFirst().getName());
+    }
+
+    @Test
+    void testWriteBehindRetriesThresholdFlushAfterFailure() throws Exception {
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(testFile, false, Duration.ofHours(1), 3)) {
+            // Непустой каталог на месте файла данных: переименование на его место не удается
+            Files.delete(testFile.toPath());
+            Files.createDirectory(testFile.toPath());
+            Path blocker = Files.createFile(testFile.toPath().resolve("blocker"));
+            for (int i = 0; i < 3; i++) {
+                manager.addNewTask(new Task("Task" + i, "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10 + i, 0)));
+            }
+            // Временный файл появляется, когда фоновый сброс по порогу уже держит блокировку сброса,
+            // поэтому синхронный flush ниже выполняется после него и тоже неудачно
+            Path temp = testFile.toPath().resolveSibling(testFile.getName() + ".tmp");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!Files.exists(temp) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThrows(ManagerSaveException.class, manager::flush);
+
+            Files.delete(blocker);
+            Files.delete(testFile.toPath());
+            // Счетчик остался выше порога: запись должно запускать следующее же изменение
+            manager.addNewTask(new Task("Task3", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 14, 0)));
+            deadline = System.currentTimeMillis() + 5000;
+            while (!Files.isRegularFile(testFile.toPath()) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(Files.isRegularFile(testFile.toPath()), "После неудачного сброса порог должен снова запускать запись");
+        }
+    }
+
+    @Test
+    void testUnclosedWriteBehindManagerCanBeCollected() throws Exception {
+        WeakReference<FileBackedTaskManager> reference =
+                new WeakReference<>(new FileBackedTaskManager(testFile, false, Duration.ofMillis(10), 1000));
+
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(reference.get(), "Поток записи и хук завершения не должны удерживать незакрытый менеджер");
+    }
+
+    @Test
+    void testWriteBehindRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new FileBackedTaskManager(testFile, false, Duration.ZERO, 10));
+        assertThrows(IllegalArgumentException.class, () -> new FileBackedTaskManager(testFile, false, Duration.ofSeconds(1), 0));
+    }
+
+    @Test
+    void testBinarySnapshotRoundTrip() {
+        Task task = new Task("Task, with comma", "Desc", Status.IN_PROGRESS, Duration.ofMinutes(90), LocalDateTime.of(2024, 1, 1, 10, 0));
+        taskManager.addNewTask(task);
+        taskManager.addNewTask(new Task("Untimed", null, Status.NEW, null, null));
+        Epic epic = new Epic("Epic", "Описание", null, null);
+        taskManager.addNewEpic(epic);
+        taskManager.addNewSubtask(new Subtask("Sub", "Desc", Status.DONE, Duration.ofHours(1), LocalDateTime.of(2024, 1, 2, 10, 0), epic.getId()));
+        Task deleted = new Task("Deleted", "Desc", Status.NEW, null, null);
+        taskManager.addNewTask(deleted);
+        taskManager.deleteTaskById(deleted.getId());
+        File snapshotFile = tempDir.resolve("tasks.bin").toFile();
+
+        taskManager.saveSnapshot(snapshotFile);
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromSnapshot(snapshotFile, testFile);
+
+        assertEquals(taskManager.getTasks(), loadedManager.getTasks());
+        Task loadedTask = loadedManager.getTaskById(task.getId());
+        assertEquals("Task, with comma", loadedTask.getName());
+        assertEquals(Status.IN_PROGRESS, loadedTask.getStatus());
+        assertEquals(task.getStartTime(), loadedTask.getStartTime());
+        assertEquals(task.getDuration(), loadedTask.getDuration());
+        assertNull(loadedManager.getTasks().get(1).getDescription());
+        assertEquals(Status.DONE, loadedManager.getEpicById(epic.getId()).getStatus());
+        assertEquals(1, loadedManager.getEpicSubtasks(loadedManager.getEpicById(epic.getId())).size());
+        assertEquals(2, loadedManager.getPrioritizedTasks().size());
+
+        Task next = new Task("Next", "Desc", Status.NEW, null, null);
+        loadedManager.addNewTask(next);
+        assertTrue(next.getId() > deleted.getId(), "id удаленной задачи не должен выдаваться повторно");
+    }
+
+    @Test
+    void testBinarySnapshotRejectsForeignFile() {
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromSnapshot(testFile, testFile));
+    }
+
+    @Test
+    void testBinarySnapshotRejectsRecordCountBeyondFile() throws IOException {
+        taskManager.addNewTask(new Task("Task", "Desc", Status.NEW, null, null));
+        Path snapshotFile = tempDir.resolve("tasks.bin");
+        taskManager.saveSnapshot(snapshotFile.toFile());
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        // Число записей в заголовке (смещение 12) больше, чем помещается в файл; 60 млн переполнило бы int
+        for (int count : new int[]{2, 60_000_000}) {
+            ByteBuffer.wrap(bytes).putInt(12, count);
+            Files.write(snapshotFile, bytes);
+
+            assertThrows(ManagerSaveException.class,
+                    () -> FileBackedTaskManager.loadFromSnapshot(snapshotFile.toFile(), testFile), "записей: " + count);
+        }
+    }
+
+    @Test
+    void testLoadFileWithForeignLineSeparators() throws IOException {
+        String content = "taskId,type,name,status,description,duration,startTime,endTime,epicId\r\n"
+                + "#nextId=3\r\n"
+                + "1,TASK,Task,NEW,Desc,1:00:00,01.01.2024 10:00,01.01.2024 11:00\n"
+                + "2,EPIC,Epic,NEW,Desc,null,null,null\r";
+        Files.writeString(testFile.toPath(), content);
+
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(testFile, true);
+
+        assertEquals(1, loadedManager.getTasks().size());
+        assertEquals(1, loadedManager.getEpics().size());
+    }
+
+    @Test
+    void testLoadReportsProgress() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 25_000; i++) {
+            tasks.add(new Task("Task" + i, "Desc", Status.NEW, Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 0, 0).plusHours(i)));
+        }
+        taskManager.addAll(tasks);
+        List<Integer> progress = new ArrayList<>();
+
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(testFile, true, progress::add);
+
+        assertEquals(List.of(10_000, 20_000, 25_000), progress);
+        assertEquals(25_000, loadedManager.getTasks().size());
+    }
+
+    @Test
+    void testCommasAndLineBreaksInNamesSurviveReload() {
+        taskManager.addNewTask(new Task("Купить хлеб, молоко", "Строка 1\nСтрока 2", Status.NEW, null, null));
+
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(testFile, true);
+
+        assertEquals("Купить хлеб, молоко", loadedManager.getTasks().getFirst().getName());
+        assertEquals("Строка 1\nСтрока 2", loadedManager.getTasks().getFirst().getDescription());
+    }
+
+    @Test
+    void testEveryDurabilityModeSavesAtomically() throws IOException {
+        for (FileBackedTaskManager.Durability durability : FileBackedTaskManager.Durability.values()) {
+            File file = Files.createTempFile(tempDir, durability.name(), ".csv").toFile();
+            try (FileBackedTaskManager manager = new FileBackedTaskManager(file, false, durability, Duration.ofMillis(10))) {
+                manager.addNewTask(new Task("Task", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0)));
+                manager.addNewTask(new Task("Other", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 12, 0)));
+            }
+
+            assertEquals(2, new FileBackedTaskManager(file, true).getTasks().size(), durability.name());
+            assertFalse(Files.exists(Path.of(file.getPath() + ".tmp")), "Временный файл не должен оставаться");
+        }
+    }
+
+    @Test
+    void testGroupCommitMergesSavesOfInterval() throws IOException {
+        File file = Files.createTempFile(tempDir, "group", ".csv").toFile();
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(file, false,
+                FileBackedTaskManager.Durability.GROUP_COMMIT, Duration.ofHours(1))) {
+            manager.addNewTask(new Task("Task", "Desc", Status.NEW, null, null));
+            manager.addNewTask(new Task("Other", "Desc", Status.NEW, null, null));
+
+            assertEquals(0, new FileBackedTaskManager(file, true).getTasks().size(),
+                    "До конца интервала сохранения только копятся");
+        }
+
+        assertEquals(2, new FileBackedTaskManager(file, true).getTasks().size(), "Закрытие записывает накопленное");
+    }
+
+    @Test
+    void testInterruptedSaveKeepsPreviousVersion() throws IOException {
+        taskManager.addNewTask(new Task("Task", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0)));
+        // Сбой посреди записи оставляет только недописанный временный файл
+        Files.writeString(Path.of(testFile.getPath() + ".tmp"), "taskId,type,name\n2,TASK,Обрыв");
+
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(testFile, true);
+
+        assertEquals(1, loadedManager.getTasks().size());
+        assertEquals("Task", loadedManager.getTasks().getFirst().getName());
+    }
+
+    @Test
+    void testSaveKeepsFilePermissions() throws IOException {
+        if (!Files.getFileStore(testFile.toPath()).supportsFileAttributeView("posix")) {
+            return;
+        }
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-------");
+        Files.setPosixFilePermissions(testFile.toPath(), permissions);
+
+        taskManager.addNewTask(new Task("Task", "Desc", Status.NEW, null, null));
+
+        assertEquals(permissions, Files.getPosixFilePermissions(testFile.toPath()));
+    }
+
+    @Test
+    void testParallelLoadMatchesSequentialLoad() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            tasks.add(new Task("Task" + i, "Desc", Status.NEW, Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 0, 0).plusHours(i)));
+        }
+        taskManager.addAll(tasks);
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        taskManager.addNewSubtask(new Subtask("Sub", "Desc", Status.DONE, Duration.ofHours(1), LocalDateTime.of(2020, 1, 1, 10, 0), epic.getId()));
+        taskManager.deleteTaskById(tasks.getLast().getId());
+
+        FileBackedTaskManager sequential = new FileBackedTaskManager(testFile, true);
+        FileBackedTaskManager parallel = FileBackedTaskManager.loadInParallel(testFile, new ForkJoinPool(4));
+
+        assertEquals(sequential.getTasks(), parallel.getTasks());
+        assertEquals(sequential.getPrioritizedTasks(), parallel.getPrioritizedTasks());
+        assertEquals(Status.DONE, parallel.getEpicById(epic.getId()).getStatus());
+        Task next = new Task("Next", "Desc", Status.NEW, null, null);
+        parallel.addNewTask(next);
+        assertTrue(next.getId() > tasks.getLast().getId(), "id удаленной задачи не должен выдаваться повторно");
+    }
+
+    @Test
+    void testParallelLoadResolvesSubtaskBeforeEpic() throws IOException {
+        String content = FileBackedTaskManager.HEADER + "\n"
+                + "2,SUBTASK,Sub,DONE,Desc,1:00:00,01.01.2024 10:00,01.01.2024 11:00,1\n"
+                + "3,SUBTASK,Orphan,NEW,Desc,null,null,null,9\n"
+                + "1,EPIC,Epic,NEW,Desc,null,null,null\n";
+        Files.writeString(testFile.toPath(), content);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadInParallel(testFile, ForkJoinPool.commonPool());
+
+        assertEquals(1, loadedManager.getSubtasks().size());
+        assertEquals(Status.DONE, loadedManager.getEpicById(1).getStatus());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 11, 0), loadedManager.getEpicById(1).getEndTime());
+    }
+
+    @Test
+    void testParallelLoadRejectsIntersectingTasks() throws IOException {
+        String content = FileBackedTaskManager.HEADER + "\n"
+                + "1,TASK,First,NEW,Desc,1:00:00,01.01.2024 10:00,01.01.2024 11:00\n"
+                + "2,TASK,Second,NEW,Desc,1:00:00,01.01.2024 10:30,01.01.2024 11:30\n";
+        Files.writeString(testFile.toPath(), content);
+
+        assertThrows(IntersectWithOtherTaskException.class,
+                () -> FileBackedTaskManager.loadInParallel(testFile, ForkJoinPool.commonPool()));
+    }
+}
@@ -0,0 +1,100 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdAllocatorTest {
+
+    @Test
+    void atomicAllocatorShouldIssueSequentialIds() {
+        IdAllocator allocator = new AtomicIdAllocator();
+
+        assertEquals(1, allocator.nextId());
+        assertEquals(2, allocator.nextId());
+        assertEquals(3, allocator.highWaterMark());
+    }
+
+    @Test
+    void reservedIdsShouldNotBeIssued() {
+        for (IdAllocator allocator : List.of(new AtomicIdAllocator(), new BlockIdAllocator(8))) {
+            allocator.nextId();
+            allocator.reserveUpTo(20);
+            allocator.reserveUpTo(5);
+
+            assertTrue(allocator.nextId() > 20, "id до зарезервированной границы не должны выдаваться");
+            assertTrue(allocator.highWaterMark() > 20);
+        }
+    }
+
+    @Test
+    void reservedBlockShouldBeContiguousAndNotReissued() {
+        for (IdAllocator allocator : List.of(new AtomicIdAllocator(), new BlockIdAllocator(8))) {
+            int issued = allocator.nextId();
+            int first = allocator.reserve(10);
+
+            assertTrue(first > issued);
+            assertEquals(first + 10, allocator.highWaterMark(), "Блок должен занимать 10 id подряд");
+            for (int i = 0; i < 20; i++) {
+                int id = allocator.nextId();
+                assertTrue(id < first || id >= first + 10, "id из зарезервированного блока не должны выдаваться");
+            }
+            assertThrows(IllegalArgumentException.class, () -> allocator.reserve(0));
+        }
+    }
+
+    @Test
+    void blockAllocatorShouldIssueUniqueIdsAcrossThreads() throws Exception {
+        IdAllocator allocator = new BlockIdAllocator(16);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 10_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(allocator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, ids.size(), "id не должны повторяться");
+        assertTrue(ids.stream().allMatch(id -> id > 0 && id < allocator.highWaterMark()));
+    }
+
+    @Test
+    void blockAllocatorShouldNotLeaseBlocksToVirtualThreads() throws Exception {
+        IdAllocator allocator = new BlockIdAllocator(64);
+        List<Integer> ids = new ArrayList<>();
+        for (int request = 0; request < 5; request++) {
+            Thread handler = Thread.ofVirtual().start(() -> ids.add(allocator.nextId()));
+            handler.join();
+        }
+
+        assertEquals(List.of(1, 2, 3, 4, 5), ids, "Короткоживущие виртуальные потоки должны получать id подряд");
+        assertEquals(6, allocator.highWaterMark());
+    }
+
+    @Test
+    void blockAllocatorShouldRejectNonPositiveBlockSize() {
+        assertThrows(IllegalArgumentException.class, () -> new BlockIdAllocator(0));
+    }
+}
@@ -15,9 +15,13 @@ class InMemoryHistoryManagerTest {
     private HistoryManager historyManager;
     private Task task1, task2, task3;
 
+    protected HistoryManager createHistoryManager() {
+        return new InMemoryHistoryManager();
+    }
+
     @BeforeEach
     void setUp() {
-        historyManager = new InMemoryHistoryManager();
+        historyManager = createHistoryManager();
         task1 = new Task("Task1", "Desc1", Status.NEW,
                 Duration.ofHours(1), LocalDateTime.now());
         task2 = new Task("Task2", "Desc2", Status.NEW,
@@ -62,6 +62,22 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
         assertEquals(taskWithTime, prioritized.getFirst());
     }
 
+    @Test
+    void shouldKeepTasksWithSameStartTimeInPrioritizedList() {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task first = new Task("First", "Desc", Status.NEW, null, time);
+        Task second = new Task("Second", "Desc", Status.NEW, null, time);
+
+        taskManager.addNewTask(first);
+        taskManager.addNewTask(second);
+
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        assertEquals(List.of(first, second), prioritized,
+                "Задачи с одинаковым временем начала не должны схлопываться");
+        assertThrows(UnsupportedOperationException.class, () -> prioritized.add(first),
+                "Приоритизированный список доступен только для чтения");
+    }
+
     @Test
     void shouldHandleEpicWithoutSubtasksTimeCalculation() {
         Epic epic = new Epic("Epic", "Description", null, null);
@@ -0,0 +1,182 @@
+package service;
+
+import exceptions.ManagerSaveException;
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTaskManagerTest extends TaskManagerTest<JournalTaskManager> {
+
+    @TempDir
+    Path tempDir;
+    private File dataFile;
+
+    @Override
+    protected JournalTaskManager createTaskManager() {
+        dataFile = tempDir.resolve("tasks.csv").toFile();
+        return new JournalTaskManager(dataFile, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskManager.close();
+    }
+
+    private Path journal() {
+        return Path.of(dataFile.getPath() + ".log");
+    }
+
+    @Test
+    void shouldAppendOneRecordPerChange() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            taskManager.addNewTask(new Task("Task" + i, "Desc", Status.NEW, Duration.ofMinutes(30),
+                    LocalDateTime.of(2024, 1, 1, 0, 0).plusHours(i)));
+        }
+        long before = Files.size(journal());
+
+        Task updated = new Task("Task0", "Desc", Status.DONE, Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 0, 0));
+        updated.setId(taskManager.getTasks().getFirst().getId());
+        taskManager.updateTask(updated);
+
+        assertEquals(101, Files.readAllLines(journal()).size());
+        assertTrue(Files.size(journal()) - before < 200, "Запись изменения не должна зависеть от числа задач");
+        assertFalse(dataFile.exists(), "Без компактизации контрольная точка не пишется");
+    }
+
+    @Test
+    void shouldReplayJournalAfterRestart() {
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        Subtask subtask = new Subtask("Sub", "Desc", Status.DONE, Duration.ofHours(1),
+                LocalDateTime.of(2024, 1, 1, 10, 0), epic.getId());
+        taskManager.addNewSubtask(subtask);
+        Task task = new Task("Task", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 12, 0));
+        taskManager.addNewTask(task);
+        taskManager.deleteTaskById(task.getId());
+
+        // Второй менеджер читает журнал, который первый еще не свернул
+        try (JournalTaskManager restored = new JournalTaskManager(dataFile, Duration.ofHours(1))) {
+            assertEquals(0, restored.getTasks().size());
+            assertEquals(1, restored.getSubtasks().size());
+            assertEquals(Status.DONE, restored.getEpicById(epic.getId()).getStatus());
+
+            Task next = new Task("Next", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 2, 12, 0));
+            restored.addNewTask(next);
+            assertTrue(next.getId() > task.getId(), "id удаленной задачи не должен выдаваться повторно");
+        }
+    }
+
+    @Test
+    void compactionShouldWriteCheckpointAndTruncateJournal() throws IOException {
+        taskManager.addNewTask(new Task("Task", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0)));
+        taskManager.addNewTask(new Task("Other", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 12, 0)));
+
+        taskManager.compact();
+
+        assertEquals(0, Files.size(journal()));
+        assertFalse(Files.exists(Path.of(dataFile.getPath() + ".log.old")));
+        // Контрольная точка в формате FileBackedTaskManager
+        assertEquals(2, new FileBackedTaskManager(dataFile, true).getTasks().size());
+
+        taskManager.deleteAllTasks();
+        try (JournalTaskManager restored = new JournalTaskManager(dataFile, Duration.ofHours(1))) {
+            assertEquals(0, restored.getTasks().size(), "Журнал должен накатываться поверх контрольной точки");
+        }
+    }
+
+    @Test
+    void shouldRecoverFromInterruptedCompaction() throws IOException {
+        Task task = new Task("Task", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0));
+        taskManager.addNewTask(task);
+        taskManager.compact();
+        // Сбой после откладывания журнала: его записи есть только в .log.old
+        Files.writeString(Path.of(dataFile.getPath() + ".log.old"), "D," + task.getId() + System.lineSeparator());
+        Files.writeString(journal(), "P," + task.getId() + ",TASK,Again,NEW,Desc,1:00:00,02.01.2024 10:00,02.01.2024 11:00"
+                + System.lineSeparator());
+
+        try (JournalTaskManager restored = new JournalTaskManager(dataFile, Duration.ofHours(1))) {
+            assertEquals(1, restored.getTasks().size());
+            assertEquals("Again", restored.getTasks().getFirst().getName());
+        }
+        assertFalse(Files.exists(Path.of(dataFile.getPath() + ".log.old")));
+    }
+
+    @Test
+    void shouldSkipAndCutTornLastRecord() throws IOException {
+        for (String torn : new String[]{"D,", "P", "C,TAS", "P,7,TASK,Ha"}) {
+            Files.writeString(journal(), "P,1,TASK,Task,NEW,Desc,null,null,null" + System.lineSeparator() + torn);
+
+            try (JournalTaskManager restored = new JournalTaskManager(dataFile, Duration.ofHours(1))) {
+                assertEquals(1, restored.getTasks().size(), "Запись перед оборванной должна примениться: " + torn);
+            }
+            assertFalse(Files.readString(journal()).contains(torn + System.lineSeparator()));
+            Files.delete(dataFile.toPath());
+        }
+    }
+
+    @Test
+    void tornRecordShouldBeDroppedEvenIfItParses() throws IOException {
+        String header = "P,1,TASK,Task,NEW,Desc,null,null,null" + System.lineSeparator()
+                + "P,12,EPIC,Epic12,NEW,Desc,null,null,null" + System.lineSeparator()
+                + "P,13,EPIC,Epic13,NEW,Desc,null,null,null" + System.lineSeparator()
+                + "P,14,SUBTASK,Sub,NEW,Desc,null,null,null,13" + System.lineSeparator();
+        // От "D,13" осталось "D,1", от подзадачи эпика 13 - подзадача эпика 1: обе записи разбираются
+        for (String torn : new String[]{"D,1", "P,14,SUBTASK,Sub,NEW,Desc,null,null,null,1"}) {
+            Files.writeString(journal(), header + torn);
+
+            try (JournalTaskManager restored = new JournalTaskManager(dataFile, Duration.ofHours(1))) {
+                assertEquals(1, restored.getTasks().size(), "Оборванная запись не должна применяться: " + torn);
+                assertEquals(13, restored.getSubtasks().getFirst().getEpicId());
+            }
+            try (JournalTaskManager reopened = new JournalTaskManager(dataFile, Duration.ofHours(1))) {
+                assertEquals(1, reopened.getTasks().size(), "Оборванная запись должна быть отрезана: " + torn);
+                assertEquals(13, reopened.getSubtasks().getFirst().getEpicId());
+            }
+            Files.delete(dataFile.toPath());
+        }
+    }
+
+    @Test
+    void tornRecordShouldBeCutBeforeNewAppends() throws IOException {
+        Files.writeString(journal(), "P,3,TASK,Ta");
+
+        try (JournalTaskManager restored = new JournalTaskManager(dataFile, Duration.ofHours(1))) {
+            assertEquals("", Files.readString(journal()));
+            restored.addNewTask(new Task("Task", "Desc", Status.NEW, null, null));
+        }
+        try (JournalTaskManager restored = new JournalTaskManager(dataFile, Duration.ofHours(1))) {
+            assertEquals(1, restored.getTasks().size());
+        }
+    }
+
+    @Test
+    void damagedRecordInTheMiddleShouldFailLoad() throws IOException {
+        Files.writeString(journal(), "D,x" + System.lineSeparator() + "P,1,TASK,Task,NEW,Desc,null,null,null" + System.lineSeparator());
+
+        assertThrows(ManagerSaveException.class, () -> new JournalTaskManager(dataFile, Duration.ofHours(1)));
+    }
+
+    @Test
+    void failedCompactionShouldKeepJournalOpen() throws IOException {
+        Path rotated = Path.of(dataFile.getPath() + ".log.old");
+        // Непустой каталог на месте отложенного журнала нельзя удалить
+        Files.createDirectories(rotated.resolve("blocker"));
+
+        assertThrows(ManagerSaveException.class, () -> taskManager.compact());
+        taskManager.addNewTask(new Task("Task", "Desc", Status.NEW, null, null));
+
+        assertEquals(1, Files.readAllLines(journal()).size());
+        Files.delete(rotated.resolve("blocker"));
+        Files.delete(rotated);
+    }
+}
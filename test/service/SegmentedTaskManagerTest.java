@@ -0,0 +1,208 @@
+package service;
+
+import exceptions.ManagerSaveException;
+import model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedTaskManagerTest extends TaskManagerTest<SegmentedTaskManager> {
+    private static final int SEGMENT_SIZE = 4;
+
+    @TempDir
+    Path tempDir;
+    private File directory;
+
+    @Override
+    protected SegmentedTaskManager createTaskManager() {
+        directory = tempDir.resolve("segments").toFile();
+        return new SegmentedTaskManager(directory, SEGMENT_SIZE);
+    }
+
+    private SegmentedTaskManager reload() {
+        return new SegmentedTaskManager(directory, SEGMENT_SIZE);
+    }
+
+    // Действующий файл сегмента: в имени есть поколение, поэтому он ищется по типу и номеру
+    private Path segmentFile(String segment) throws IOException {
+        try (Stream<Path> files = Files.list(directory.toPath())) {
+            List<Path> matching = files.filter(file -> file.getFileName().toString().matches(segment + "\\.\\d+\\.csv"))
+                    .toList();
+            assertEquals(1, matching.size(), "У сегмента должен быть один файл: " + segment);
+            return matching.getFirst();
+        }
+    }
+
+    private List<Task> addTasks(int count) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(new Task("Task" + i, "Desc", Status.NEW, Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 0, 0).plusHours(i)));
+        }
+        taskManager.addAll(tasks);
+        return tasks;
+    }
+
+    @Test
+    void shouldSplitTasksIntoSegmentsById() throws IOException {
+        addTasks(10);
+
+        // id 1..10 при размере сегмента 4: сегменты 0 (1-3), 1 (4-7), 2 (8-10)
+        assertTrue(Files.exists(segmentFile("task-0")));
+        assertTrue(Files.exists(segmentFile("task-1")));
+        assertTrue(Files.exists(segmentFile("task-2")));
+        assertEquals(10, reload().getTasks().size());
+    }
+
+    @Test
+    void editShouldRewriteOnlyItsSegment() throws IOException {
+        List<Task> tasks = addTasks(10);
+        // Правка файла другого сегмента на диске: если он будет переписан, правка пропадет
+        Path untouched = segmentFile("task-2");
+        Files.writeString(untouched, Files.readString(untouched).replace("Task9", "Edited"));
+
+        Task updated = new Task("Renamed", "Desc", Status.DONE, Duration.ofMinutes(30), tasks.getFirst().getStartTime());
+        updated.setId(tasks.getFirst().getId());
+        taskManager.updateTask(updated);
+
+        SegmentedTaskManager loaded = reload();
+        assertEquals("Renamed", loaded.getTaskById(tasks.getFirst().getId()).getName());
+        assertEquals("Edited", loaded.getTaskById(tasks.get(9).getId()).getName());
+    }
+
+    @Test
+    void shouldStitchEpicsAndSubtasksFromDifferentSegments() {
+        addTasks(6);
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        for (int i = 0; i < 6; i++) {
+            taskManager.addNewSubtask(new Subtask("Sub" + i, "Desc", Status.DONE, null, null, epic.getId()));
+        }
+
+        SegmentedTaskManager loaded = reload();
+
+        assertEquals(6, loaded.getSubtasks().size());
+        assertEquals(6, loaded.getEpicById(epic.getId()).getSubtaskCount());
+        assertEquals(Status.DONE, loaded.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    void segmentNamesShouldNotDependOnDefaultLocale() throws IOException {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            Epic epic = new Epic("Epic", "Desc", null, null);
+            taskManager.addNewEpic(epic);
+            taskManager.addNewSubtask(new Subtask("Sub", "Desc", Status.DONE, null, null, epic.getId()));
+
+            // В турецкой локали "EPIC".toLowerCase() дает "epıc" (i без точки)
+            assertTrue(Files.exists(segmentFile("epic-0")));
+            SegmentedTaskManager loaded = reload();
+            assertEquals(Status.DONE, loaded.getEpicById(epic.getId()).getStatus());
+            assertEquals(1, loaded.getSubtasks().size());
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void deletingEpicShouldRewriteSegmentsOfItsSubtasks() {
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        for (int i = 0; i < 9; i++) {
+            taskManager.addNewSubtask(new Subtask("Sub" + i, "Desc", Status.NEW, null, null, epic.getId()));
+        }
+
+        taskManager.deleteEpicById(epic.getId());
+
+        SegmentedTaskManager loaded = reload();
+        assertEquals(0, loaded.getEpics().size());
+        assertEquals(0, loaded.getSubtasks().size());
+        assertEquals(1, directory.list().length, "Пустые сегменты удаляются, остается только граница id");
+    }
+
+    @Test
+    void failedSaveShouldKeepPreviousStateOfAllSegments() throws IOException {
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        for (int i = 0; i < 9; i++) {
+            taskManager.addNewSubtask(new Subtask("Sub" + i, "Desc", Status.NEW, null, null, epic.getId()));
+        }
+        Path meta = directory.toPath().resolve("segments.meta");
+        String committed = Files.readString(meta);
+        // meta нельзя заменить: сегменты подзадач уже переписаны, но сохранение не зафиксировано
+        Files.delete(meta);
+        Files.createDirectories(meta.resolve("busy"));
+
+        assertThrows(ManagerSaveException.class, () -> taskManager.deleteEpicById(epic.getId()));
+
+        Files.delete(meta.resolve("busy"));
+        Files.delete(meta);
+        Files.writeString(meta, committed);
+        SegmentedTaskManager loaded = reload();
+        assertEquals(1, loaded.getEpics().size(), "Незафиксированное удаление не должно быть видно");
+        assertEquals(9, loaded.getSubtasks().size(), "Подзадачи должны остаться вместе с эпиком");
+        assertEquals(9, loaded.getEpicById(epic.getId()).getSubtaskCount());
+        try (Stream<Path> files = Files.list(directory.toPath())) {
+            assertEquals(4, files.filter(file -> file.toString().endsWith(".csv")).count(),
+                    "Недописанные файлы сегментов должны удаляться при загрузке");
+        }
+    }
+
+    @Test
+    void shouldLoadSegmentsWrittenWithoutGenerations() throws IOException {
+        Files.createDirectories(directory.toPath());
+        Files.writeString(directory.toPath().resolve("task-0.csv"), FileBackedTaskManager.HEADER + "\n"
+                + CsvTaskCodec.encode(taskWithId(3)) + "\n");
+        Files.writeString(directory.toPath().resolve("segments.meta"), "#nextId=7\n");
+
+        SegmentedTaskManager loaded = reload();
+        assertEquals(1, loaded.getTasks().size());
+        Task next = new Task("Next", "Desc", Status.NEW, null, null);
+        loaded.addNewTask(next);
+
+        assertEquals(7, next.getId());
+        assertEquals(2, reload().getTasks().size(), "Старый сегмент должен читаться и после первого сохранения");
+
+        Task renamed = new Task("Renamed", "Desc", Status.NEW, null, null);
+        renamed.setId(3);
+        loaded.updateTask(renamed);
+
+        assertFalse(Files.exists(directory.toPath().resolve("task-0.csv")), "Переписанный сегмент получает поколение");
+        assertEquals("Renamed", reload().getTaskById(3).getName());
+    }
+
+    private static Task taskWithId(int id) {
+        Task task = new Task("Old", "Desc", Status.NEW, null, null);
+        task.setId(id);
+        return task;
+    }
+
+    @Test
+    void deletedIdsShouldNotBeReusedAfterReload() {
+        List<Task> tasks = addTasks(3);
+        taskManager.deleteAllTasks();
+
+        SegmentedTaskManager loaded = reload();
+        Task next = new Task("Next", "Desc", Status.NEW, null, null);
+        loaded.addNewTask(next);
+
+        assertTrue(next.getId() > tasks.getLast().getId());
+    }
+
+    @Test
+    void shouldRejectNonPositiveSegmentSize() {
+        assertThrows(IllegalArgumentException.class, () -> new SegmentedTaskManager(directory, 0));
+    }
+}
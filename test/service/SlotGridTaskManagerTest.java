@@ -0,0 +1,68 @@
+package service;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotGridTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
+
+    @Override
+    protected InMemoryTaskManager createTaskManager() {
+        return new InMemoryTaskManager(Duration.ofMinutes(15));
+    }
+
+    @Test
+    void shouldRejectSlotLengthNotDividingDay() {
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryTaskManager(Duration.ofMinutes(7)));
+    }
+
+    @Test
+    void shouldDetectOverlapBetweenAlignedTasksAcrossMidnight() {
+        LocalDateTime lateEvening = LocalDateTime.of(2024, 1, 1, 23, 0);
+        taskManager.addNewTask(new Task("Night", "Desc", Status.NEW, Duration.ofHours(2), lateEvening));
+
+        Task morning = new Task("Morning", "Desc", Status.NEW,
+                Duration.ofMinutes(15), LocalDateTime.of(2024, 1, 2, 0, 45));
+
+        assertThrows(IntersectWithOtherTaskException.class, () -> taskManager.addNewTask(morning),
+                "Пересечение должно обнаруживаться и после полуночи");
+    }
+
+    @Test
+    void shouldCheckAlignedTaskAgainstOffGridTask() {
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        taskManager.addNewTask(new Task("OffGrid", "Desc", Status.NEW, Duration.ofMinutes(5), baseTime.plusMinutes(7)));
+
+        assertThrows(IntersectWithOtherTaskException.class, () -> taskManager.addNewTask(
+                new Task("Aligned", "Desc", Status.NEW, Duration.ofMinutes(15), baseTime)),
+                "Задача на сетке должна проверяться и против задач вне сетки");
+        assertDoesNotThrow(() -> taskManager.addNewTask(
+                new Task("Before", "Desc", Status.NEW, Duration.ofMinutes(7), baseTime)),
+                "Точная проверка не должна давать ложных пересечений в частично занятом слоте");
+    }
+
+    @Test
+    void shouldReleaseSlotsOnDeleteAndUpdate() {
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task task = new Task("Task", "Desc", Status.NEW, Duration.ofMinutes(30), baseTime);
+        taskManager.addNewTask(task);
+
+        Task moved = new Task("Task", "Desc", Status.NEW, Duration.ofMinutes(30), baseTime.plusHours(1));
+        moved.setId(task.getId());
+        taskManager.updateTask(moved);
+
+        assertDoesNotThrow(() -> taskManager.addNewTask(
+                new Task("Old slot", "Desc", Status.NEW, Duration.ofMinutes(30), baseTime)),
+                "Слоты прежнего интервала должны освобождаться при обновлении");
+
+        taskManager.deleteTaskById(moved.getId());
+
+        assertDoesNotThrow(() -> taskManager.addNewTask(
+                new Task("New slot", "Desc", Status.NEW, Duration.ofMinutes(30), baseTime.plusHours(1))),
+                "Слоты удаленной задачи должны освобождаться");
+    }
+}
@@ -7,6 +7,8 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -68,6 +70,29 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertTrue(taskManager.getTasks().isEmpty(), "Все задачи должны быть удалены");
     }
 
+    @Test
+    void viewsShouldBeLiveAndReadOnly() {
+        Collection<Task> tasksView = taskManager.getTasksView();
+        Task task = new Task("Task", "Desc", Status.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0));
+        taskManager.addNewTask(task);
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        taskManager.addNewSubtask(new Subtask("Sub", "Desc", Status.NEW, null, null, epic.getId()));
+
+        assertEquals(1, tasksView.size(), "Представление должно отражать добавленные задачи");
+        assertThrows(UnsupportedOperationException.class, () -> tasksView.add(task));
+        assertEquals(List.of(epic), taskManager.streamEpics().toList());
+        assertEquals(1, taskManager.streamSubtasks().count());
+
+        List<Task> visited = new ArrayList<>();
+        taskManager.forEachTask(visited::add);
+        taskManager.forEachSubtask(visited::add);
+        assertEquals(2, visited.size());
+
+        taskManager.deleteAllTasks();
+        assertTrue(tasksView.isEmpty(), "Представление должно отражать удаление задач");
+    }
+
     // Тесты для эпиков
     @Test
     void shouldAddAndFindEpic() {
@@ -256,6 +281,46 @@ public abstract class TaskManagerTest<T extends TaskManager> {
                 "Статус эпика с любой подзадачей IN_PROGRESS должен быть IN_PROGRESS");
     }
 
+    @Test
+    void epicTimingShouldFollowSubtaskChanges() {
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Subtask early = new Subtask("Early", "Desc", Status.DONE, Duration.ofHours(1), baseTime, epic.getId());
+        Subtask late = new Subtask("Late", "Desc", Status.NEW, Duration.ofHours(1), baseTime.plusHours(4), epic.getId());
+        taskManager.addNewSubtask(early);
+        taskManager.addNewSubtask(late);
+
+        assertEquals(Duration.ofHours(5), epic.getDuration());
+
+        taskManager.deleteSubtaskById(late.getId());
+
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(baseTime.plusHours(1), epic.getEndTime());
+        assertEquals(Duration.ofHours(1), epic.getDuration());
+        assertEquals(List.of(early), taskManager.getEpicSubtasks(epic));
+    }
+
+    @Test
+    void updatedEpicShouldKeepSubtasks() {
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        Subtask subtask = new Subtask("Sub", "Desc", Status.DONE,
+                Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 10, 0), epic.getId());
+        taskManager.addNewSubtask(subtask);
+
+        Epic renamed = new Epic("Renamed", "Desc", null, null);
+        renamed.setId(epic.getId());
+        taskManager.updateEpic(renamed);
+
+        assertEquals(List.of(subtask), taskManager.getEpicSubtasks(taskManager.getEpicById(epic.getId())));
+
+        subtask.setStatus(Status.NEW);
+        taskManager.updateSubtask(subtask);
+
+        assertEquals(Status.NEW, renamed.getStatus());
+    }
+
     // Тесты на пересечение интервалов
     @Test
     void shouldPreventTaskTimeOverlap() {
@@ -285,6 +350,281 @@ public abstract class TaskManagerTest<T extends TaskManager> {
                 "Не должно быть исключений при непересекающихся задачах");
     }
 
+    @Test
+    void shouldFindOverlapWithEarlierLongTask() {
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        taskManager.addNewTask(new Task("Long", "Desc", Status.NEW, Duration.ofHours(5), baseTime));
+        taskManager.addNewTask(new Task("Later", "Desc", Status.NEW, Duration.ofHours(1), baseTime.plusHours(6)));
+
+        Task inside = new Task("Inside", "Desc", Status.NEW, Duration.ofMinutes(15), baseTime.plusHours(4));
+
+        assertThrows(IntersectWithOtherTaskException.class, () -> taskManager.addNewTask(inside),
+                "Пересечение с более ранней длинной задачей должно обнаруживаться");
+    }
+
+    @Test
+    void shouldAllowAdjacentTasksAndReuseFreedTime() {
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task first = new Task("First", "Desc", Status.NEW, Duration.ofHours(1), baseTime);
+        taskManager.addNewTask(first);
+
+        assertDoesNotThrow(() -> taskManager.addNewTask(
+                new Task("Next", "Desc", Status.NEW, Duration.ofHours(1), baseTime.plusHours(1))),
+                "Задача, начинающаяся в момент окончания другой, не пересекается с ней");
+
+        taskManager.deleteTaskById(first.getId());
+
+        assertDoesNotThrow(() -> taskManager.addNewTask(
+                new Task("Replacement", "Desc", Status.NEW, Duration.ofMinutes(30), baseTime)),
+                "Время удаленной задачи должно освобождаться");
+    }
+
+    @Test
+    void shouldPreventOverlapOnUpdate() {
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task first = new Task("First", "Desc", Status.NEW, Duration.ofHours(1), baseTime);
+        Task second = new Task("Second", "Desc", Status.NEW, Duration.ofHours(1), baseTime.plusHours(2));
+        taskManager.addNewTask(first);
+        taskManager.addNewTask(second);
+
+        Task moved = new Task("Second", "Desc", Status.NEW, Duration.ofHours(1), baseTime.plusMinutes(30));
+        moved.setId(second.getId());
+
+        assertThrows(IntersectWithOtherTaskException.class, () -> taskManager.updateTask(moved),
+                "Обновление не должно приводить к пересечению с другой задачей");
+
+        Task shifted = new Task("Second", "Desc", Status.NEW, Duration.ofHours(1), baseTime.plusHours(2).plusMinutes(30));
+        shifted.setId(second.getId());
+
+        assertDoesNotThrow(() -> taskManager.updateTask(shifted),
+                "Сдвиг задачи внутри собственного интервала не является пересечением");
+    }
+
+    @Test
+    void shouldReturnTasksInTimeWindow() {
+        LocalDateTime day = LocalDateTime.of(2024, 1, 2, 0, 0);
+        Task night = new Task("Night", "Desc", Status.NEW, Duration.ofHours(2), day.plusHours(8));
+        Task noon = new Task("Noon", "Desc", Status.NEW, Duration.ofHours(1), day.plusHours(12));
+        Task evening = new Task("Evening", "Desc", Status.NEW, Duration.ofHours(1), day.plusHours(18));
+        Task unscheduled = new Task("Unscheduled", "Desc", Status.NEW, null, null);
+        taskManager.addNewTask(evening);
+        taskManager.addNewTask(noon);
+        taskManager.addNewTask(night);
+        taskManager.addNewTask(unscheduled);
+
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        Subtask subtask = new Subtask("Sub", "Desc", Status.NEW,
+                Duration.ofMinutes(30), day.plusHours(15), epic.getId());
+        taskManager.addNewSubtask(subtask);
+
+        LocalDateTime from = day.plusHours(9);
+        LocalDateTime to = day.plusHours(18);
+
+        assertEquals(List.of(night, noon, subtask), taskManager.getTasksInWindow(from, to),
+                "В окно попадают выполняющиеся и начинающиеся в нем задачи, в порядке начала");
+        assertEquals(3, taskManager.countTasksInWindow(from, to));
+        assertTrue(taskManager.getTasksInWindow(day.plusHours(19), day.plusHours(20)).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksInWindow(to, from));
+    }
+
+    @Test
+    void shouldFindNextFreeSlot() {
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        taskManager.addNewTask(new Task("First", "Desc", Status.NEW, Duration.ofHours(1), baseTime));
+        taskManager.addNewTask(new Task("Second", "Desc", Status.NEW, Duration.ofMinutes(30), baseTime.plusMinutes(80)));
+
+        assertEquals(baseTime.plusHours(1),
+                taskManager.findNextFreeSlot(Duration.ofMinutes(20), baseTime.plusMinutes(15)),
+                "Короткий интервал помещается в промежуток между задачами");
+        assertEquals(baseTime.plusMinutes(110),
+                taskManager.findNextFreeSlot(Duration.ofMinutes(30), baseTime),
+                "Длинный интервал должен начинаться после последней задачи");
+
+        LocalDateTime slot = taskManager.findNextFreeSlot(Duration.ofMinutes(45), baseTime);
+        assertDoesNotThrow(() -> taskManager.addNewTask(
+                new Task("Bot", "Desc", Status.NEW, Duration.ofMinutes(45), slot)),
+                "Найденный интервал должен быть свободен");
+    }
+
+    @Test
+    void shouldFindFreeSlotsInWindow() {
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 9, 0);
+        taskManager.addNewTask(new Task("Meeting", "Desc", Status.NEW, Duration.ofMinutes(90), baseTime.plusMinutes(60)));
+
+        List<LocalDateTime> slots = taskManager.findFreeSlots(baseTime, baseTime.plusHours(4), Duration.ofHours(1), 10);
+
+        assertEquals(List.of(baseTime, baseTime.plusMinutes(150)), slots,
+                "Интервалы должны подбираться только в свободных промежутках окна");
+        assertEquals(1, taskManager.findFreeSlots(baseTime, baseTime.plusHours(4), Duration.ofHours(1), 1).size());
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.findFreeSlots(baseTime, baseTime.plusHours(4), Duration.ZERO, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.findFreeSlots(baseTime, baseTime.plusHours(4), Duration.ofHours(1), 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.findFreeSlots(baseTime, baseTime.plusHours(4), Duration.ofHours(1), -1));
+    }
+
+    @Test
+    void shouldAddBatchOfTasks() {
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task task = new Task("Task", "Desc", Status.NEW, Duration.ofHours(1), baseTime.plusHours(2));
+        Subtask sub1 = new Subtask("Sub1", "Desc", Status.DONE, Duration.ofHours(1), baseTime, epic.getId());
+        Subtask sub2 = new Subtask("Sub2", "Desc", Status.DONE, Duration.ofHours(1), baseTime.plusHours(1), epic.getId());
+
+        taskManager.addAll(List.of(task, sub1, sub2));
+
+        assertEquals(List.of(sub1, sub2, task), taskManager.getPrioritizedTasks());
+        assertEquals(List.of(epic.getId() + 1, epic.getId() + 2, epic.getId() + 3),
+                List.of(task.getId(), sub1.getId(), sub2.getId()), "Id выдаются одним блоком в порядке пакета");
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(baseTime, epic.getStartTime());
+        assertEquals(baseTime.plusHours(2), epic.getEndTime());
+    }
+
+    @Test
+    void shouldReportEveryEarlierBatchTaskOverlappedByOneTask() {
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task longOne = new Task("Long", "Desc", Status.NEW, Duration.ofHours(2), baseTime);
+        Task inner = new Task("Inner", "Desc", Status.NEW, Duration.ofMinutes(15), baseTime.plusMinutes(30));
+        Task both = new Task("Both", "Desc", Status.NEW, Duration.ofMinutes(20), baseTime.plusMinutes(40));
+
+        IntersectWithOtherTaskException exception = assertThrows(IntersectWithOtherTaskException.class,
+                () -> taskManager.addAll(List.of(both, inner, longOne)));
+
+        assertEquals(3, exception.getConflicts().size(), "Последняя задача пересекает обе более ранние");
+        assertEquals(inner, exception.getConflicts().get(0).task());
+        assertEquals(longOne, exception.getConflicts().get(0).conflictingTask());
+        assertEquals(both, exception.getConflicts().get(1).task());
+        assertEquals(longOne, exception.getConflicts().get(1).conflictingTask());
+        assertEquals(both, exception.getConflicts().get(2).task());
+        assertEquals(inner, exception.getConflicts().get(2).conflictingTask());
+        assertTrue(taskManager.getTasks().isEmpty());
+    }
+
+    @Test
+    void shouldReportAllConflictsInBatchAndAddNothing() {
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+        taskManager.addNewTask(new Task("Existing", "Desc", Status.NEW, Duration.ofHours(1), baseTime));
+
+        Task clashesWithExisting = new Task("A", "Desc", Status.NEW, Duration.ofMinutes(30), baseTime.plusMinutes(30));
+        Task first = new Task("B", "Desc", Status.NEW, Duration.ofHours(1), baseTime.plusHours(3));
+        Task clashesWithBatch = new Task("C", "Desc", Status.NEW, Duration.ofHours(1), baseTime.plusHours(3).plusMinutes(30));
+        Task free = new Task("D", "Desc", Status.NEW, Duration.ofHours(1), baseTime.plusHours(6));
+
+        IntersectWithOtherTaskException exception = assertThrows(IntersectWithOtherTaskException.class,
+                () -> taskManager.addAll(List.of(free, clashesWithBatch, first, clashesWithExisting)));
+
+        assertEquals(2, exception.getConflicts().size(), "Должны сообщаться все пересечения пакета");
+        assertEquals(clashesWithExisting, exception.getConflicts().get(0).task());
+        assertEquals(clashesWithBatch, exception.getConflicts().get(1).task());
+        assertEquals(first, exception.getConflicts().get(1).conflictingTask());
+        assertEquals(1, taskManager.getTasks().size(), "При пересечениях пакет не должен добавляться");
+    }
+
+    @Test
+    void updatingEpicWithFreshObjectShouldKeepStatusAndTimeFromSubtasks() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        Subtask subtask = new Subtask("Sub", "Desc", Status.IN_PROGRESS, Duration.ofMinutes(30), start, epic.getId());
+        taskManager.addNewSubtask(subtask);
+
+        Epic replacement = new Epic("Renamed", "New desc", null, null);
+        replacement.setId(epic.getId());
+        taskManager.updateEpic(replacement);
+
+        Epic updated = taskManager.getEpicById(epic.getId());
+        assertEquals("Renamed", updated.getName());
+        assertEquals(Status.IN_PROGRESS, updated.getStatus(), "Статус эпика должен вычисляться по подзадачам");
+        assertEquals(start, updated.getStartTime());
+        assertEquals(start.plusMinutes(30), updated.getEndTime());
+        assertEquals(Duration.ofMinutes(30), updated.getDuration());
+        assertEquals(List.of(subtask.getId()), updated.getSubtaskIds());
+    }
+
+    @Test
+    void listsShouldBeOrderedById() {
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        for (int i = 0; i < 200; i++) {
+            taskManager.addNewTask(new Task("Task" + i, "Desc", Status.NEW, null, null));
+            taskManager.addNewSubtask(new Subtask("Sub" + i, "Desc", Status.NEW, null, null, epic.getId()));
+        }
+
+        for (List<? extends Task> list : List.of(taskManager.getTasks(), taskManager.getSubtasks())) {
+            assertEquals(200, list.size());
+            for (int i = 1; i < list.size(); i++) {
+                assertTrue(list.get(i - 1).getId() < list.get(i).getId(), "Списки должны быть упорядочены по id");
+            }
+        }
+    }
+
+    @Test
+    void snapshotShouldNotSeeLaterChanges() {
+        Task task = new Task("Task", "Desc", Status.NEW, null, null);
+        taskManager.addNewTask(task);
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        taskManager.getTaskById(task.getId());
+
+        TaskSnapshot before = taskManager.snapshot();
+        task.setStatus(Status.DONE);
+        taskManager.updateTask(task);
+        taskManager.addNewSubtask(new Subtask("Sub", "Desc", Status.DONE, null, null, epic.getId()));
+        taskManager.getEpicById(epic.getId());
+        TaskSnapshot after = taskManager.snapshot();
+
+        assertEquals(Status.NEW, before.getTaskById(task.getId()).getStatus(), "Снимок не должен меняться вслед за менеджером");
+        assertTrue(before.getSubtasks().isEmpty());
+        assertEquals(List.of(task), before.getHistory());
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(Status.DONE, after.getTaskById(task.getId()).getStatus());
+        assertEquals(Status.DONE, after.getEpicById(epic.getId()).getStatus(), "В снимке эпик должен быть пересчитан");
+        assertEquals(1, after.getEpicSubtasks(epic.getId()).size());
+        assertEquals(List.of(task, epic), after.getHistory());
+    }
+
+    @Test
+    void viewsShouldReachSnapshotAsOneVersion() {
+        Task first = new Task("First", "Desc", Status.NEW, null, null);
+        taskManager.addNewTask(first);
+        Task second = new Task("Second", "Desc", Status.NEW, null, null);
+        taskManager.addNewTask(second);
+
+        TaskSnapshot before = taskManager.snapshot();
+        for (int i = 0; i < 10; i++) {
+            taskManager.getTaskById(second.getId());
+            taskManager.getTaskById(first.getId());
+        }
+        TaskSnapshot after = taskManager.snapshot();
+
+        assertEquals(before.getVersion() + 1, after.getVersion(), "Просмотры должны переноситься в снимок пачкой");
+        assertTrue(before.getHistory().isEmpty());
+        assertEquals(List.of(second, first), after.getHistory());
+    }
+
+    @Test
+    void snapshotShouldReflectDeletions() {
+        Epic epic = new Epic("Epic", "Desc", null, null);
+        taskManager.addNewEpic(epic);
+        Subtask subtask = new Subtask("Sub", "Desc", Status.NEW, null, null, epic.getId());
+        taskManager.addNewSubtask(subtask);
+        taskManager.getSubtaskById(subtask.getId());
+
+        TaskSnapshot before = taskManager.snapshot();
+        taskManager.deleteEpicById(epic.getId());
+        TaskSnapshot after = taskManager.snapshot();
+
+        assertEquals(1, before.getSubtasks().size());
+        assertTrue(after.getEpics().isEmpty());
+        assertTrue(after.getSubtasks().isEmpty());
+        assertTrue(after.getHistory().isEmpty(), "Удаленные задачи должны пропадать из истории снимка");
+        assertThrows(UnsupportedOperationException.class, () -> after.getTasks().add(epic));
+    }
+
     @Test
     void shouldGetEpicSubtasks() {
         Epic epic = new Epic("Epic", "Desc", null, null);
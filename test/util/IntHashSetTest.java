@@ -0,0 +1,72 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashSetTest {
+
+    @Test
+    void shouldAddContainAndRemoveWithoutDuplicates() {
+        IntHashSet set = new IntHashSet();
+
+        assertTrue(set.add(5));
+        assertFalse(set.add(5), "Повторное добавление не должно создавать дубликат");
+        assertTrue(set.add(0), "Ноль должен поддерживаться как обычный ключ");
+        assertEquals(2, set.size());
+        assertTrue(set.contains(0));
+
+        assertTrue(set.remove(5));
+        assertFalse(set.remove(5));
+        assertFalse(set.contains(5));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void shouldIterateOverAllKeysWithPrimitiveIterator() {
+        IntHashSet set = new IntHashSet();
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+
+        int[] seen = new int[100];
+        PrimitiveIterator.OfInt iterator = set.iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            seen[count++] = iterator.nextInt();
+        }
+        Arrays.sort(seen);
+
+        assertEquals(100, count);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, seen[i]);
+        }
+    }
+
+    @Test
+    void shouldMatchHashSetUnderRandomOperations() {
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) - 100;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(key), set.add(key));
+            } else {
+                assertEquals(expected.remove(key), set.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (int key = -100; key < 1_900; key++) {
+            assertEquals(expected.contains(key), set.contains(key), "Расхождение для ключа " + key);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectHashMapTest {
+
+    @Test
+    void shouldPutGetReplaceAndRemove() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+
+        assertNull(map.put(1, "one"));
+        assertEquals("one", map.put(1, "uno"), "put должен возвращать прежнее значение");
+        assertNull(map.put(0, "zero"));
+        assertEquals(2, map.size());
+        assertEquals("uno", map.get(1));
+        assertEquals("zero", map.get(0));
+
+        assertEquals("uno", map.remove(1));
+        assertNull(map.get(1));
+        assertNull(map.remove(1));
+        assertEquals(1, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(2, null));
+    }
+
+    @Test
+    void shouldIterateAllValuesForSequentialIds() {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        for (int id = 1; id <= 5; id++) {
+            map.put(id, id);
+        }
+
+        List<Integer> values = new ArrayList<>(map.values());
+        values.sort(null);
+        assertEquals(List.of(1, 2, 3, 4, 5), values);
+    }
+
+    @Test
+    void valuesShouldFailFastOnStructuralChange() {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        for (int id = 1; id <= 5; id++) {
+            map.put(id, id);
+        }
+
+        Iterator<Integer> iterator = map.values().iterator();
+        iterator.next();
+        map.put(1, 10);
+        iterator.next();
+        map.remove(2);
+        assertThrows(ConcurrentModificationException.class, iterator::next,
+                "Удаление ключа во время обхода должно обнаруживаться");
+        assertThrows(ConcurrentModificationException.class, () -> map.forEachValue(value -> map.put(100 + value, value)));
+    }
+
+    @Test
+    void shouldRemoveManySequentialIdsQuickly() {
+        int count = 200_000;
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        for (int id = 1; id <= count; id++) {
+            map.put(id, id);
+        }
+
+        long start = System.nanoTime();
+        for (int id = 1; id <= count; id++) {
+            assertEquals(id, map.remove(id).intValue());
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(map.isEmpty());
+        assertTrue(millis < 2_000, "Удаление подряд идущих id не должно быть квадратичным: " + millis + " мс");
+    }
+
+    @Test
+    void shouldMatchHashMapUnderRandomOperations() {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(3_000);
+            if (random.nextInt(3) > 0) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.size(), map.values().size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key), "Расхождение для ключа " + key));
+        List<Integer> keys = new ArrayList<>();
+        map.forEachKey(keys::add);
+        assertEquals(expected.size(), keys.size());
+    }
+}
@@ -0,0 +1,70 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentIntMapTest {
+
+    @Test
+    void shouldKeepPreviousVersionsUnchanged() {
+        PersistentIntMap<String> empty = PersistentIntMap.empty();
+        PersistentIntMap<String> first = empty.put(1, "one");
+        PersistentIntMap<String> second = first.put(2, "two").put(1, "uno");
+        PersistentIntMap<String> third = second.remove(2);
+
+        assertTrue(empty.isEmpty());
+        assertEquals("one", first.get(1));
+        assertNull(first.get(2));
+        assertEquals("uno", second.get(1));
+        assertEquals(2, second.size());
+        assertEquals(1, third.size());
+        assertFalse(third.containsKey(2));
+        assertSame(third, third.remove(42), "Удаление отсутствующего ключа не должно создавать версию");
+    }
+
+    @Test
+    void shouldIterateInAscendingKeyOrder() {
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        for (int key : new int[]{1_000_000, 5, 0, 70_000, 33, Integer.MAX_VALUE}) {
+            map = map.put(key, key);
+        }
+
+        List<Integer> values = new ArrayList<>();
+        map.forEach(values::add);
+        assertEquals(List.of(0, 5, 33, 70_000, 1_000_000, Integer.MAX_VALUE), values);
+    }
+
+    @Test
+    void shouldMatchHashMapOnRandomOperations() {
+        Random random = new Random(7);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 2_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    void shouldRejectNullValues() {
+        assertThrows(NullPointerException.class, () -> PersistentIntMap.empty().put(1, null));
+    }
+}
@@ -0,0 +1,33 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringPoolTest {
+
+    @Test
+    void equalStringsShouldBeReturnedAsOneInstance() {
+        StringPool strings = new StringPool();
+
+        String first = strings.dedupe(new String("Name"));
+
+        assertSame(first, strings.dedupe(new String("Name")));
+        assertNull(strings.dedupe(null));
+        assertEquals(1, strings.size());
+    }
+
+    @Test
+    void fullPoolShouldReturnNewStringsAsIs() {
+        StringPool strings = new StringPool(2);
+        strings.dedupe("a");
+        strings.dedupe("b");
+
+        String extra = new String("c");
+
+        assertSame(extra, strings.dedupe(extra), "Заполненный пул не должен расти");
+        assertEquals(2, strings.size());
+        assertSame(strings.dedupe(new String("a")), strings.dedupe(new String("a")));
+        assertThrows(IllegalArgumentException.class, () -> new StringPool(0));
+    }
+}